@@ -1,20 +1,208 @@
 package at.juggle.sieben;
 
 import android.content.Context;
-import android.media.MediaPlayer;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.os.Build;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 
 import de.baumann.sieben.R;
 
 /**
  * Created by dermotte on 28.09.2016.
  *
+ * Sound effects of a workout. All cues are loaded once into an
+ * {@link android.media.SoundPool}, which keeps them decoded in memory, so
+ * playing a cue does not decode or create a player and starts right away.
+ * Cues are registered by id; besides the whistle there are short beeps for
+ * the last seconds of a phase and a tick at half time, generated as PCM on
+ * first use.
  */
 
 public class SoundPool {
-    @SuppressWarnings("unused")
-    public static int sndWhistle = R.raw.whistle_blow_cc0;
 
-    public static void playWhistle(Context context) {
-        MediaPlayer.create(context, R.raw.whistle_blow_cc0).start();
+    public static final int CUE_WHISTLE = 1;
+    public static final int CUE_BEEP = 2;
+    public static final int CUE_TICK = 3;
+
+    private static final String TAG = "Seven";
+
+    private static final int SAMPLE_RATE = 22050;
+    private static final int MAX_STREAMS = 3;
+
+    private static SoundPool instance;
+
+    private final android.media.SoundPool pool;
+    // cue id -> sound id of the pool
+    private final SparseIntArray sounds = new SparseIntArray();
+    private final SparseBooleanArray loaded = new SparseBooleanArray();
+
+    /**
+     * @return the shared engine, created and preloaded on first use
+     */
+    public static synchronized SoundPool get(Context context) {
+        if (instance == null) {
+            instance = new SoundPool(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Free the decoded samples, e.g. when the workout screen is closed.
+     */
+    public static synchronized void release() {
+        if (instance != null) {
+            instance.pool.release();
+            instance = null;
+        }
+    }
+
+    private SoundPool(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            AudioAttributes attributes = new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_ASSISTANCE_SONIFICATION)
+                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                    .build();
+            pool = new android.media.SoundPool.Builder()
+                    .setMaxStreams(MAX_STREAMS)
+                    .setAudioAttributes(attributes)
+                    .build();
+        } else {
+            //noinspection deprecation
+            pool = new android.media.SoundPool(MAX_STREAMS, AudioManager.STREAM_MUSIC, 0);
+        }
+
+        pool.setOnLoadCompleteListener(new android.media.SoundPool.OnLoadCompleteListener() {
+            @Override
+            public void onLoadComplete(android.media.SoundPool soundPool, int sampleId, int status) {
+                if (status == 0) {
+                    synchronized (loaded) {
+                        loaded.put(sampleId, true);
+                    }
+                }
+            }
+        });
+
+        register(CUE_WHISTLE, pool.load(context, R.raw.whistle_blow_cc0, 1));
+        register(CUE_BEEP, loadTone(context, "cue_beep.wav", 880, 150));
+        register(CUE_TICK, loadTone(context, "cue_tick.wav", 1760, 40));
+    }
+
+    /**
+     * Register a sound of the pool as cue, replacing an existing one.
+     */
+    public void register(int cue, int soundId) {
+        if (soundId > 0) {
+            sounds.put(cue, soundId);
+        }
+    }
+
+    /**
+     * Load a sound file (e.g. a pre-synthesized phrase) into the pool.
+     * @return the sound id, 0 if it could not be loaded
+     */
+    public int loadSample(String path) {
+        return pool.load(path, 1);
+    }
+
+    public void unloadSample(int soundId) {
+        pool.unload(soundId);
+    }
+
+    /**
+     * @return the stream id to {@link #stop(int)} the sample, 0 if it is not loaded yet
+     */
+    public int playSample(int soundId) {
+        boolean ready;
+        synchronized (loaded) {
+            ready = loaded.get(soundId);
+        }
+        return ready ? pool.play(soundId, 1f, 1f, 1, 0, 1f) : 0;
+    }
+
+    public void stop(int streamId) {
+        pool.stop(streamId);
+    }
+
+    public void play(int cue) {
+        int soundId = sounds.get(cue);
+        boolean ready;
+        synchronized (loaded) {
+            ready = loaded.get(soundId);
+        }
+        if (ready) {
+            pool.play(soundId, 1f, 1f, 1, 0, 1f);
+        } else {
+            Log.w(TAG, "Sound cue " + cue + " not loaded");
+        }
+    }
+
+    private int loadTone(Context context, String name, int frequency, int durationMs) {
+        File file = new File(context.getCacheDir(), name);
+        try {
+            if (!file.exists()) {
+                File tmp = new File(context.getCacheDir(), name + ".tmp");
+                writeTone(tmp, frequency, durationMs);
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Cannot create " + file);
+                }
+            }
+            return pool.load(file.getPath(), 1);
+        } catch (IOException e) {
+            Log.w(TAG, "Tone " + name + " not available", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Write a 16 bit mono WAV file with a sine tone that fades out.
+     */
+    private static void writeTone(File file, int frequency, int durationMs) throws IOException {
+        int samples = SAMPLE_RATE * durationMs / 1000;
+        int dataSize = samples * 2;
+
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        try {
+            out.writeBytes("RIFF");
+            writeIntLE(out, 36 + dataSize);
+            out.writeBytes("WAVE");
+            out.writeBytes("fmt ");
+            writeIntLE(out, 16);
+            writeShortLE(out, 1);               // PCM
+            writeShortLE(out, 1);               // mono
+            writeIntLE(out, SAMPLE_RATE);
+            writeIntLE(out, SAMPLE_RATE * 2);   // byte rate
+            writeShortLE(out, 2);               // block align
+            writeShortLE(out, 16);              // bits per sample
+            out.writeBytes("data");
+            writeIntLE(out, dataSize);
+
+            for (int i = 0; i < samples; i++) {
+                double fade = 1.0 - (double) i / samples;
+                double value = Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE) * fade;
+                writeShortLE(out, (int) (value * Short.MAX_VALUE * 0.8));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void writeIntLE(DataOutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+    private static void writeShortLE(DataOutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
     }
 }
@@ -1,9 +1,16 @@
 package de.baumann.sieben;
 
+import android.Manifest;
+import android.content.ComponentName;
+import android.content.Context;
 import android.content.Intent;
+import android.content.ServiceConnection;
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.IBinder;
 import android.preference.PreferenceManager;
 import android.support.design.widget.Snackbar;
 import android.support.v7.app.AppCompatActivity;
@@ -14,68 +21,65 @@ import android.widget.ImageView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
-import at.juggle.sieben.SoundPool;
 import de.baumann.sieben.helper.Activity_intro;
-import de.baumann.sieben.helper.CountDownTimer;
+import de.baumann.sieben.helper.BitmapLoader;
 import de.baumann.sieben.helper.OnSwipeTouchListener;
-import de.baumann.sieben.helper.TTSManager;
 import de.baumann.sieben.helper.UserSettingsActivity;
-import de.baumann.sieben.pause.Pause;
-import de.baumann.sieben.pause.Pause10;
-import de.baumann.sieben.pause.Pause11;
-import de.baumann.sieben.pause.Pause2;
-import de.baumann.sieben.pause.Pause3;
-import de.baumann.sieben.pause.Pause4;
-import de.baumann.sieben.pause.Pause5;
-import de.baumann.sieben.pause.Pause6;
-import de.baumann.sieben.pause.Pause7;
-import de.baumann.sieben.pause.Pause8;
-import de.baumann.sieben.pause.Pause9;
-import de.baumann.sieben.workouts.MainActivity1;
-import de.baumann.sieben.workouts.MainActivity10;
-import de.baumann.sieben.workouts.MainActivity11;
-import de.baumann.sieben.workouts.MainActivity12;
-import de.baumann.sieben.workouts.MainActivity2;
-import de.baumann.sieben.workouts.MainActivity3;
-import de.baumann.sieben.workouts.MainActivity4;
-import de.baumann.sieben.workouts.MainActivity5;
-import de.baumann.sieben.workouts.MainActivity6;
-import de.baumann.sieben.workouts.MainActivity7;
-import de.baumann.sieben.workouts.MainActivity8;
-import de.baumann.sieben.workouts.MainActivity9;
-
-
-public class MainActivity extends AppCompatActivity {
-
-    private TextView textView;
+import de.baumann.sieben.session.CountdownDisplay;
+import de.baumann.sieben.session.Phase;
+import de.baumann.sieben.session.PhaseResources;
+import de.baumann.sieben.session.WorkoutSession;
+
+
+public class MainActivity extends AppCompatActivity implements WorkoutSession.Listener {
+
     private TextView textView2;
-    private ProgressBar progressBar;
-    private TTSManager ttsManager = null;
+    private CountdownDisplay countdown;
     private ImageView imageView;
 
-    private boolean isPaused = false;
-    private boolean isCanceled = false;
-    private long timeRemaining = 5000;
-
     private SharedPreferences sharedPref;
+    private WorkoutService service;
+    private BitmapLoader bitmapLoader;
+
+    // "endless_workout" arrived before the service was bound
+    private boolean startPending = false;
+
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            service = ((WorkoutService.LocalBinder) binder).getService();
+            service.setDisplay(MainActivity.this);
+            showSession();
+
+            if (startPending) {
+                startPending = false;
+                start();
+            }
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            service = null;
+        }
+    };
 
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace.begin("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
         setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_PORTRAIT);
+        StartupTrace.begin("MainActivity.setContentView");
         setContentView(R.layout.activity_main);
+        StartupTrace.end();
 
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings, false);
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings_exercises, false);
         sharedPref = PreferenceManager.getDefaultSharedPreferences(MainActivity.this);
-
-        // Reset repetition counter when activity is created (new workout session)
-        // Don't reset if this is a continuation of an endless workout
-        Intent intent = getIntent();
-        String action = intent != null ? intent.getAction() : null;
-        if (savedInstanceState == null && !"endless_workout".equals(action)) {
-            sharedPref.edit().putInt("current_repetition", 0).apply();
+        if (!sharedPref.contains("act1")) {
+            // first launch, the plan needs the defaults right away
+            StartupTrace.begin("MainActivity.setDefaultValues");
+            PreferenceManager.setDefaultValues(this, R.xml.user_settings, false);
+            PreferenceManager.setDefaultValues(this, R.xml.user_settings_exercises, false);
+            StartupTrace.end();
         }
 
         boolean show = sharedPref.getBoolean("intro_notShow", true);
@@ -88,198 +92,101 @@ public class MainActivity extends AppCompatActivity {
 
         imageView = (ImageView) findViewById(R.id.imageView);
         assert imageView != null;
-
-        if (sharedPref.getBoolean("act1", false)) {
-            imageView.setImageResource(R.drawable.a01);
-        } else  if (sharedPref.getBoolean("act2", false)) {
-            imageView.setImageResource(R.drawable.a02);
-        } else  if (sharedPref.getBoolean("act3", false)) {
-            imageView.setImageResource(R.drawable.a03);
-        } else  if (sharedPref.getBoolean("act4", false)) {
-            imageView.setImageResource(R.drawable.a04);
-        } else  if (sharedPref.getBoolean("act5", false)) {
-            imageView.setImageResource(R.drawable.a05);
-        } else  if (sharedPref.getBoolean("act6", false)) {
-            imageView.setImageResource(R.drawable.a06);
-        } else  if (sharedPref.getBoolean("act7", false)) {
-            imageView.setImageResource(R.drawable.a07);
-        } else  if (sharedPref.getBoolean("act8", false)) {
-            imageView.setImageResource(R.drawable.a08);
-        } else  if (sharedPref.getBoolean("act9", false)) {
-            imageView.setImageResource(R.drawable.a09);
-        } else  if (sharedPref.getBoolean("act10", false)) {
-            imageView.setImageResource(R.drawable.a10);
-        } else  if (sharedPref.getBoolean("act11", false)) {
-            imageView.setImageResource(R.drawable.a11);
-        } else  if (sharedPref.getBoolean("act12", false)) {
-            imageView.setImageResource(R.drawable.a12);
-        } else {
-            imageView.setImageResource(R.drawable.a01);
-        }
+        bitmapLoader = new BitmapLoader(imageView);
 
         Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
 
-        progressBar = (ProgressBar)findViewById(R.id.progressBar);
+        ProgressBar progressBar = (ProgressBar)findViewById(R.id.progressBar);
         assert progressBar != null;
         progressBar.setRotation(180);
 
-        textView = (TextView) this.findViewById(R.id.timer);
+        TextView textView = (TextView) this.findViewById(R.id.timer);
+        countdown = new CountdownDisplay(textView, progressBar);
         textView2 = (TextView) this.findViewById(R.id.timer2);
         assert textView2 != null;
         textView2.setText(R.string.start);
 
+        // the session lives in the service, so it keeps running with the screen off
+        bindService(new Intent(this, WorkoutService.class), connection, Context.BIND_AUTO_CREATE);
 
-        ttsManager = new TTSManager();
-        ttsManager.init(this);
-
-        imageView.setOnTouchListener(new OnSwipeTouchListener(MainActivity.this) {
-            final SharedPreferences sharedPref = PreferenceManager.getDefaultSharedPreferences(MainActivity.this);
+        // each swipe changes the running session in place, on the touch-up
+        imageView.setOnTouchListener(new OnSwipeTouchListener() {
             public void onSwipeTop() {
-                start();
-            }
-
-            public void onSwipeRight() {
-                if (sharedPref.getBoolean ("tts", false)){
-                    String text = getResources().getString(R.string.sn_first);
-                    ttsManager.initQueue(text);
+                if (service == null) {
+                    return;
                 }
+                if (!service.getSession().isStarted()) {
+                    start();
+                    return;
+                }
+
+                service.resume();
 
-                Snackbar.make(imageView, R.string.sn_first, Snackbar.LENGTH_LONG)
+                service.speak(R.string.sn_weiter);
+                Snackbar.make(imageView, R.string.sn_weiter, Snackbar.LENGTH_LONG)
                         .setAction("Action", null).show();
             }
 
-            public void onSwipeLeft() {
-
-                isCanceled = true;
-
-                if (sharedPref.getBoolean ("tts", false)){
-
-                    if (sharedPref.getBoolean ("tts", false)){
-
-                        if (sharedPref.getBoolean("act2", false)) {
-                            String text = getResources().getString(R.string.pau);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act3", false)) {
-                            String text = getResources().getString(R.string.pau_2);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act4", false)) {
-                            String text = getResources().getString(R.string.pau_3);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act5", false)) {
-                            String text = getResources().getString(R.string.pau_4);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act6", false)) {
-                            String text = getResources().getString(R.string.pau_5);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act7", false)) {
-                            String text = getResources().getString(R.string.pau_6);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act8", false)) {
-                            String text = getResources().getString(R.string.pau_7);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act9", false)) {
-                            String text = getResources().getString(R.string.pau_8);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act10", false)) {
-                            String text = getResources().getString(R.string.pau_9);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act11", false)) {
-                            String text = getResources().getString(R.string.pau_10);
-                            ttsManager.initQueue(text);
-                        } else  if (sharedPref.getBoolean("act12", false)) {
-                            String text = getResources().getString(R.string.pau_11);
-                            ttsManager.initQueue(text);
-                        } else {
-                            String text = getResources().getString(R.string.sn_last);
-                            ttsManager.initQueue(text);
-                        }
-                    }
+            public void onSwipeRight() {
+                if (service != null && !service.skipBack()) {
+                    service.speak(R.string.sn_first);
+                    Snackbar.make(imageView, R.string.sn_first, Snackbar.LENGTH_LONG)
+                            .setAction("Action", null).show();
                 }
+            }
 
-                if (sharedPref.getBoolean("act2", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act3", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause2.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act4", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause3.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act5", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause4.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                }else if (sharedPref.getBoolean("act6", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause5.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act7", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause6.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act8", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause7.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act9", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause8.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                }else if (sharedPref.getBoolean("act10", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause9.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act11", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause10.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act12", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, Pause11.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else {
+            public void onSwipeLeft() {
+                if (service != null && !service.skipForward()) {
+                    service.speak(R.string.sn_last);
                     Snackbar.make(imageView, R.string.sn_last, Snackbar.LENGTH_LONG)
                             .setAction("Action", null).show();
                 }
             }
 
             public void onSwipeBottom() {
-                if (sharedPref.getBoolean ("tts", false)){
-                    String text = getResources().getString(R.string.sn_pause);
-                    ttsManager.initQueue(text);
+                if (service == null) {
+                    return;
                 }
-
-                isPaused = true;
+                service.pause();
+                service.speak(R.string.sn_pause);
                 Snackbar.make(imageView, R.string.sn_pause, Snackbar.LENGTH_LONG)
                         .setAction("Action", null).show();
             }
         });
 
-        onNewIntent(intent);
+        handleIntent(getIntent());
+
+        StartupTrace.reportFirstFrame(this);
+        StartupTrace.end();
     }
 
-    protected void onNewIntent(final Intent intent) {
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // the settings may have changed the plan of a session not started yet
+        if (service != null) {
+            showSession();
+        }
+    }
 
-        String action = intent.getAction();
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        // e.g. relaunched from the notification, later getIntent() calls see this one
+        setIntent(intent);
+        handleIntent(intent);
+    }
+
+    private void handleIntent(Intent intent) {
+        String action = intent != null ? intent.getAction() : null;
 
         if ("endless_workout".equals(action)) {
-            // Continue with the next repetition of the workout
-            start();
+            if (service == null) {
+                startPending = true;
+            } else if (!service.getSession().isStarted()) {
+                start();
+            }
         }
     }
 
@@ -299,7 +206,9 @@ public class MainActivity extends AppCompatActivity {
             Intent intent_in = new Intent(MainActivity.this, UserSettingsActivity.class);
             startActivity(intent_in);
             overridePendingTransition(0, 0);
-            isCanceled = true;
+            if (service != null) {
+                service.pause();
+            }
         }
 
         return super.onOptionsItemSelected(item);
@@ -307,155 +216,75 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     public void onBackPressed() {
-        isCanceled = true;
+        if (service != null) {
+            service.cancel();
+        }
         finishAffinity();
     }
 
+    @Override
+    protected void onDestroy() {
+        // a running workout goes on in the service, back cancels it explicitly
+        if (service != null) {
+            service.setDisplay(null);
+            service = null;
+        }
+        unbindService(connection);
+        bitmapLoader.shutdown();
+        super.onDestroy();
+    }
+
     private void start () {
-        isPaused = false;
-        isCanceled = false;
-
-        long millisInFuture = timeRemaining;
-        long countDownInterval = 100;
-
-        new CountDownTimer(millisInFuture, countDownInterval){
-            public void onTick(long millisUntilFinished){
-                if(isPaused || isCanceled) {
-                    cancel();
-                } else {
-                    textView.setText(String.valueOf(millisUntilFinished / 1000));
-                    textView2.setText("");
-                    int progress = (int) (millisUntilFinished/50);
-                    progressBar.setProgress(progress);
-                    timeRemaining = millisUntilFinished;
-                }
-            }
-            public void onFinish(){
+        if (Build.VERSION.SDK_INT >= 33
+                && checkSelfPermission(Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            // the workout runs without it, only the notification stays hidden
+            requestPermissions(new String[] {Manifest.permission.POST_NOTIFICATIONS}, 0);
+        }
+        service.start();
 
-                if (sharedPref.getBoolean ("beep", false)){
-//                            final ToneGenerator tg = new ToneGenerator(AudioManager.STREAM_NOTIFICATION, 100);
-//                            tg.startTone(ToneGenerator.TONE_PROP_BEEP);
-                    SoundPool.playWhistle(getApplicationContext());
-                }
+        Snackbar.make(imageView, R.string.start2, Snackbar.LENGTH_LONG)
+                .setAction("Action", null).show();
+    }
 
-                if (sharedPref.getBoolean ("tts", false)){
-
-                    if (sharedPref.getBoolean("act1", false)) {
-                        String text = getResources().getString(R.string.act);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act2", false)) {
-                        String text = getResources().getString(R.string.act_2);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act3", false)) {
-                        String text = getResources().getString(R.string.act_3);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act4", false)) {
-                        String text = getResources().getString(R.string.act_4);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act5", false)) {
-                        String text = getResources().getString(R.string.act_5);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act6", false)) {
-                        String text = getResources().getString(R.string.act_6);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act7", false)) {
-                        String text = getResources().getString(R.string.act_7);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act8", false)) {
-                        String text = getResources().getString(R.string.act_8);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act9", false)) {
-                        String text = getResources().getString(R.string.act_9);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act10", false)) {
-                        String text = getResources().getString(R.string.act_10);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act11", false)) {
-                        String text = getResources().getString(R.string.act_11);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act12", false)) {
-                        String text = getResources().getString(R.string.act_12);
-                        ttsManager.initQueue(text);
-                    } else {
-                        String text = getResources().getString(R.string.end);
-                        ttsManager.initQueue(text);
-                    }
-                }
+    /**
+     * Catch up with the service's session, which may have run without a screen.
+     */
+    private void showSession() {
+        WorkoutSession session = service.getSession();
+        showPhase(session.getCurrentPhase());
+        if (session.isFinished()) {
+            countdown.setText(R.string.end);
+        } else if (session.isStarted()) {
+            textView2.setText("");
+            countdown.onTick(session.getRemaining());
+        }
+    }
 
-                progressBar.setProgress(0);
-
-                if (sharedPref.getBoolean("act1", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity1.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act2", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity2.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act3", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity3.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act4", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity4.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act5", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity5.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                }else if (sharedPref.getBoolean("act6", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity6.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act7", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity7.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act8", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity8.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act9", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity9.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act10", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity10.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act11", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity11.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act12", false)) {
-                    Intent intent_in = new Intent(MainActivity.this, MainActivity12.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else {
-                    textView.setText(R.string.end);
-                }
-            }
-        }.start();
+    private void showPhase(Phase phase) {
+        bitmapLoader.load(PhaseResources.image(phase));
+        bitmapLoader.prefetch(PhaseResources.image(service.getSession().getNextPhase()));
+        setTitle(PhaseResources.titleText(this, phase));
+        countdown.setPhase(phase);
+    }
 
-        if (sharedPref.getBoolean ("tts", false)){
-            String text = getResources().getString(R.string.start2);
-            ttsManager.initQueue(text);
-        }
+    @Override
+    public void onPhaseStarted(Phase phase) {
+        showPhase(phase);
+        textView2.setText("");
+    }
 
-        Snackbar.make(imageView, R.string.start2, Snackbar.LENGTH_LONG)
-                .setAction("Action", null).show();
+    @Override
+    public void onTick(Phase phase, long millisUntilFinished) {
+        countdown.onTick(millisUntilFinished);
+    }
+
+    @Override
+    public void onPhaseCompleted(Phase phase) {
+        countdown.setProgress(0);
+    }
+
+    @Override
+    public void onSessionFinished() {
+        countdown.setText(R.string.end);
     }
 }
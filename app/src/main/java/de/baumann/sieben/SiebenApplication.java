@@ -0,0 +1,25 @@
+package de.baumann.sieben;
+
+import android.app.Application;
+import android.preference.PreferenceManager;
+
+public class SiebenApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        StartupTrace.markProcessStart();
+        super.onCreate();
+
+        // keep the preference defaults up to date without blocking the first frame,
+        // MainActivity only writes them itself on the very first launch
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                StartupTrace.begin("SiebenApplication.setDefaultValues");
+                PreferenceManager.setDefaultValues(SiebenApplication.this, R.xml.user_settings, false);
+                PreferenceManager.setDefaultValues(SiebenApplication.this, R.xml.user_settings_exercises, false);
+                StartupTrace.end();
+            }
+        }, "defaults").start();
+    }
+}
@@ -0,0 +1,99 @@
+package de.baumann.sieben;
+
+import android.app.Activity;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Startup instrumentation: named sections for systrace / Perfetto and the
+ * time from process start to the first frame of the first activity.
+ *
+ * The last measurement is kept in the "startup" preferences together with
+ * the version code, so cold start can be compared across releases, e.g. with
+ * adb logcat -s Seven or by reading the file from a debug build. A start that
+ * misses the budget is logged as a warning.
+ */
+public final class StartupTrace {
+
+    private static final String PREFS = "startup";
+
+    // target for the time to the first frame of a cold start, on the oldest supported devices
+    static final long COLD_START_BUDGET_MS = 500;
+
+    // elapsedRealtime of the process start, 0 if not known yet
+    private static long processStart = 0;
+    private static boolean firstFrameReported = false;
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Called first thing in {@link SiebenApplication#onCreate()}.
+     */
+    static void markProcessStart() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            processStart = Process.getStartElapsedRealtime();
+        } else {
+            processStart = SystemClock.elapsedRealtime();
+        }
+    }
+
+    public static void begin(String name) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(name);
+        }
+    }
+
+    public static void end() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Record the time to the first frame of the activity, once per process.
+     * Call at the end of onCreate.
+     */
+    public static void reportFirstFrame(final Activity activity) {
+        if (firstFrameReported || processStart == 0) {
+            return;
+        }
+        firstFrameReported = true;
+
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                // the frame is drawn right after this callback returns
+                decorView.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        long millis = SystemClock.elapsedRealtime() - processStart;
+                        String message = "Time to first frame: " + millis + " ms ("
+                                + COLD_START_BUDGET_MS + " ms budget)";
+                        if (millis > COLD_START_BUDGET_MS) {
+                            Log.w("Seven", message + ", missed it by " + (millis - COLD_START_BUDGET_MS) + " ms");
+                        } else {
+                            Log.i("Seven", message);
+                        }
+
+                        SharedPreferences prefs = activity.getApplicationContext()
+                                .getSharedPreferences(PREFS, Activity.MODE_PRIVATE);
+                        prefs.edit()
+                                .putLong("first_frame_ms", millis)
+                                .putInt("first_frame_version", BuildConfig.VERSION_CODE)
+                                .apply();
+                    }
+                });
+                return true;
+            }
+        });
+    }
+}
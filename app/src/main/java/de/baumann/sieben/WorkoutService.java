@@ -0,0 +1,654 @@
+package de.baumann.sieben;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Binder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.PowerManager;
+import android.os.Process;
+import android.preference.PreferenceManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import at.juggle.sieben.SoundPool;
+import de.baumann.sieben.helper.DailyStatsHelper;
+import de.baumann.sieben.helper.DbAdapter_Programs;
+import de.baumann.sieben.helper.TTSManager;
+import de.baumann.sieben.session.CuePlayer;
+import de.baumann.sieben.session.CueTimeline;
+import de.baumann.sieben.session.Phase;
+import de.baumann.sieben.session.PhaseResources;
+import de.baumann.sieben.session.PlanPreferences;
+import de.baumann.sieben.session.SessionCheckpoint;
+import de.baumann.sieben.session.WorkoutPlan;
+import de.baumann.sieben.session.WorkoutSession;
+
+/**
+ * Hosts the {@link WorkoutSession}, so a workout keeps its timing when the
+ * screen is locked or the app is in the background. While a session is
+ * started the service runs in the foreground with an ongoing notification
+ * showing the phase and the remaining time; a partial wake lock is held only
+ * while the countdown runs, the display may turn off.
+ *
+ * Statistics, sounds and speech are handled here. A bound activity only
+ * renders the session, see {@link #setDisplay(WorkoutSession.Listener)}.
+ *
+ * The position is saved at every phase boundary and pause, a session lost
+ * with its process comes back paused in the same phase, see
+ * {@link SessionCheckpoint}.
+ *
+ * Sounds and speech run on their own thread: each tick only hands the
+ * position over, the {@link CuePlayer} there plays what became due.
+ * Announcements are placed ahead of their phase by the length of the cached
+ * phrase, so they end as the phase starts.
+ */
+public class WorkoutService extends Service implements WorkoutSession.Listener {
+
+    private static final String CHANNEL = "workout";
+    private static final int NOTIFICATION_ID = 1;
+
+    // older sessions are not worth continuing
+    private static final long CHECKPOINT_MAX_AGE = 60 * 60 * 1000;
+    // time for the end of a workout to be said before the audio is released
+    private static final long RELEASE_DELAY = 5000;
+
+    public class LocalBinder extends Binder {
+        public WorkoutService getService() {
+            return WorkoutService.this;
+        }
+    }
+
+    private final IBinder binder = new LocalBinder();
+
+    private SharedPreferences sharedPref;
+    private WorkoutSession session;
+    private WorkoutSession.Listener display;
+    private SessionCheckpoint checkpoint;
+    private SoundPool soundPool;
+    private TTSManager ttsManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private PowerManager.WakeLock wakeLock;
+    private NotificationManager notificationManager;
+    private Notification.Builder notification;
+    private boolean foreground = false;
+    // what the notification shows, it is only posted again when this changes
+    private long shownSecond = -1;
+    private boolean shownPaused = false;
+    private Phase shownPhase;
+    private final StringBuilder notificationText = new StringBuilder();
+
+    // sounds and announcements of the plan, only used on the cue thread
+    private HandlerThread cueThread;
+    private Handler cueHandler;
+    private CuePlayer cuePlayer;
+    // the next phase start comes from a start or a jump, not the timeline
+    private boolean seeking = false;
+
+    // the settings or the program changed while a session was started
+    private boolean planChanged = false;
+    private final SharedPreferences.OnSharedPreferenceChangeListener planListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+        @Override
+        public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+            if ("tts".equals(key)) {
+                preparePhrases();
+                return;
+            }
+            if (key == null || !PlanPreferences.isPlanKey(key)) {
+                return;
+            }
+            if (session.isStarted()) {
+                // the running workout keeps its plan, the next start picks up the change
+                planChanged = true;
+            } else {
+                newSession();
+            }
+        }
+    };
+
+    // latest session position for the cue thread to play up to
+    private volatile long cuePosition;
+    // session position of the next cue, published by the cue thread
+    private volatile long nextCueDue;
+    private final Runnable advanceCuesRunnable = new Runnable() {
+        @Override
+        public void run() {
+            cuePlayer.advanceTo(cuePosition);
+            nextCueDue = cuePlayer.getNextDue();
+        }
+    };
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        sharedPref = PreferenceManager.getDefaultSharedPreferences(this);
+        if (sharedPref.contains("current_repetition")) {
+            // kept by older versions, replaced by the session checkpoint
+            sharedPref.edit().remove("current_repetition").apply();
+        }
+        cueThread = new HandlerThread("cues", Process.THREAD_PRIORITY_AUDIO);
+        cueThread.start();
+        cueHandler = new Handler(cueThread.getLooper());
+        newSession();
+        // the bound service outlives visits to the settings
+        sharedPref.registerOnSharedPreferenceChangeListener(planListener);
+
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "Sieben:workout");
+        wakeLock.setReferenceCounted(false);
+        notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+
+        checkpoint = new SessionCheckpoint(this);
+        checkpoint.read(new SessionCheckpoint.Callback() {
+            @Override
+            public void onCheckpointRead(SessionCheckpoint.Record record) {
+                restore(record);
+            }
+        });
+
+        // sounds and speech are only needed once a workout starts
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                prepareAudio();
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // a restarted process has lost the session, there is nothing to resume
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        sharedPref.unregisterOnSharedPreferenceChangeListener(planListener);
+        handler.removeCallbacks(releaseAudioRunnable);
+        session.cancel();
+        stopForegroundMode();
+        final boolean audio = soundPool != null;
+        soundPool = null;
+        // after the cues queued so far, e.g. the end of the workout
+        cueHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (audio) {
+                    SoundPool.release();
+                    TTSManager.shutDown();
+                }
+                cueThread.quit();
+            }
+        });
+        super.onDestroy();
+    }
+
+    public WorkoutSession getSession() {
+        return session;
+    }
+
+    /**
+     * Forward the session events to a screen, null when it goes away.
+     */
+    public void setDisplay(WorkoutSession.Listener display) {
+        this.display = display;
+    }
+
+    /**
+     * Start a new workout, or restart a finished one.
+     */
+    public void start() {
+        prepareAudio();
+        if (session.isFinished() || planChanged) {
+            // settings changed during the last workout
+            newSession();
+        } else {
+            // the phrase lengths are known by now
+            compileCues();
+        }
+        seeking = true;
+        session.start();
+        updateState();
+    }
+
+    public void pause() {
+        session.pause();
+        updateState();
+        if (session.isStarted()) {
+            checkpoint.save(session);
+        }
+    }
+
+    public void resume() {
+        session.resume();
+        updateState();
+        if (session.isStarted()) {
+            checkpoint.save(session);
+        }
+    }
+
+    public boolean skipForward() {
+        seeking = true;
+        boolean skipped = session.skipForward();
+        seeking = false;
+        updateState();
+        return skipped;
+    }
+
+    public boolean skipBack() {
+        seeking = true;
+        boolean skipped = session.skipBack();
+        seeking = false;
+        updateState();
+        return skipped;
+    }
+
+    /**
+     * Stop the workout for good, e.g. when the screen is left with back.
+     */
+    public void cancel() {
+        session.cancel();
+        checkpoint.clear();
+        stopForegroundMode();
+    }
+
+    /**
+     * Continue a session saved before the process died, paused.
+     */
+    private void restore(SessionCheckpoint.Record record) {
+        if (record == null || session.isStarted()) {
+            // a new workout was started in the meantime, it saves its own position
+            return;
+        }
+        if (record.getPlanHash() != session.getPlan().getHash() || !record.isRecent(CHECKPOINT_MAX_AGE)
+                || !session.restore(record.getPhaseIndex(), record.getRepetition(), record.getRemaining())) {
+            checkpoint.clear();
+            return;
+        }
+
+        Phase phase = session.getCurrentPhase();
+        long remaining = session.getRemaining();
+        prepareAudio();
+        compileCues();
+        seekCues(remaining);
+
+        updateState();
+        checkpoint.save(session);
+
+        if (display != null) {
+            display.onPhaseStarted(phase);
+            display.onTick(phase, remaining);
+        }
+    }
+
+    public void speak(int textRes) {
+        prepareAudio();
+        final String text = getString(textRes);
+        cueHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                say(text);
+            }
+        });
+    }
+
+    // on the cue thread
+    private void say(String text) {
+        if (ttsManager != null && sharedPref.getBoolean ("tts", false)){
+            ttsManager.initQueue(text);
+        }
+    }
+
+    private void newSession() {
+        planChanged = false;
+        session = new WorkoutSession(readPlan(), this);
+        // the titles of a program are announced too, before the cues need their length
+        preparePhrases();
+        compileCues();
+    }
+
+    /**
+     * Build the cue timeline of the session's plan on the cue thread, with
+     * every announcement leading its phase by the length of its phrase.
+     */
+    private void compileCues() {
+        final WorkoutPlan plan = session.getPlan();
+        final TTSManager tts = sharedPref.getBoolean ("tts", false) ? ttsManager : null;
+        cueHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                long[] leads = new long[plan.size()];
+                if (tts != null) {
+                    for (int i = 0; i < leads.length; i++) {
+                        if (plan.get(i).hasCue(Phase.CUE_ANNOUNCE)) {
+                            leads[i] = tts.getPhraseDuration(
+                                    PhaseResources.announcementText(WorkoutService.this, plan.get(i)));
+                        }
+                    }
+                }
+                cuePlayer = new CuePlayer(CueTimeline.compile(plan, leads), new CuePlayer.Target() {
+                    @Override
+                    public void onCue(int event, int phase) {
+                        playCue(plan, event, phase);
+                    }
+                });
+                nextCueDue = cuePlayer.getNextDue();
+            }
+        });
+        nextCueDue = 0;
+    }
+
+    private void seekCues(long remaining) {
+        final int repetition = session.getRepetition();
+        final int phaseIndex = session.getPhaseIndex();
+        final long position = remaining;
+        cueHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                cuePlayer.seek(repetition, phaseIndex, position);
+                nextCueDue = cuePlayer.getNextDue();
+            }
+        });
+        // the events at the new position are due on the next tick
+        nextCueDue = 0;
+    }
+
+    /**
+     * Let the cue thread play what became due, only posted on the ticks
+     * that reach the next cue.
+     */
+    private void advanceCues() {
+        long position = session.getPosition();
+        if (position < nextCueDue) {
+            return;
+        }
+        cuePosition = position;
+        cueHandler.post(advanceCuesRunnable);
+    }
+
+    // on the cue thread
+    private void playCue(WorkoutPlan plan, int event, int phase) {
+        boolean beep = sharedPref.getBoolean ("beep", false);
+        SoundPool sounds = SoundPool.get(this);
+        if (event == CueTimeline.EVENT_ANNOUNCE) {
+            say(PhaseResources.announcementText(this, plan.get(phase)));
+        } else if (event == CueTimeline.EVENT_HALFWAY && beep) {
+            sounds.play(SoundPool.CUE_TICK);
+        } else if (event == CueTimeline.EVENT_BEEP && beep) {
+            sounds.play(SoundPool.CUE_BEEP);
+        } else if (event == CueTimeline.EVENT_WHISTLE && beep) {
+            sounds.play(SoundPool.CUE_WHISTLE);
+        }
+        // EVENT_PHASE_START: the session reports phase changes itself
+    }
+
+    /**
+     * @return the selected program, or the workout of the settings
+     */
+    private WorkoutPlan readPlan() {
+        long program;
+        try {
+            program = Long.parseLong(sharedPref.getString("program", "0"));
+        } catch (NumberFormatException e) {
+            program = 0;
+        }
+        if (program > 0) {
+            WorkoutPlan plan = DbAdapter_Programs.get(this).load(program);
+            if (plan != null) {
+                return plan;
+            }
+        }
+        return PlanPreferences.read(sharedPref);
+    }
+
+    /**
+     * Load the sound samples and bind the speech engine, once.
+     */
+    private void prepareAudio() {
+        // a workout started again right after the last one keeps the audio
+        handler.removeCallbacks(releaseAudioRunnable);
+        if (soundPool != null) {
+            return;
+        }
+        StartupTrace.begin("WorkoutService.prepareAudio");
+        soundPool = SoundPool.get(this);
+
+        ttsManager = TTSManager.get(this);
+        preparePhrases();
+        StartupTrace.end();
+    }
+
+    /**
+     * Give up the sounds and the speech engine of a finished workout, the
+     * next one prepares them again.
+     */
+    private final Runnable releaseAudioRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (soundPool == null) {
+                return;
+            }
+            soundPool = null;
+            ttsManager = null;
+            SoundPool.release();
+            TTSManager.shutDown();
+        }
+    };
+
+    /**
+     * Cache the announcements of the current plan on the cue thread, once
+     * the audio is prepared and speech is on.
+     */
+    private void preparePhrases() {
+        if (ttsManager == null || !sharedPref.getBoolean ("tts", false)) {
+            return;
+        }
+        final TTSManager tts = ttsManager;
+        final String[] texts = phrases();
+        cueHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                tts.preparePhrases(texts);
+            }
+        });
+    }
+
+    /**
+     * @return every text the workout announces
+     */
+    private String[] phrases() {
+        int[] ids = {
+                R.string.act, R.string.act_2, R.string.act_3, R.string.act_4,
+                R.string.act_5, R.string.act_6, R.string.act_7, R.string.act_8,
+                R.string.act_9, R.string.act_10, R.string.act_11, R.string.act_12,
+                R.string.act_122,
+                R.string.pau, R.string.pau_2, R.string.pau_3, R.string.pau_4,
+                R.string.pau_5, R.string.pau_6, R.string.pau_7, R.string.pau_8,
+                R.string.pau_9, R.string.pau_10, R.string.pau_11, R.string.pau_112,
+                R.string.start2, R.string.sn_pause, R.string.sn_weiter, R.string.end,
+                R.string.sn_first, R.string.sn_last
+        };
+        List<String> texts = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            texts.add(getString(id));
+        }
+        // titles of the phases of a program
+        WorkoutPlan plan = session.getPlan();
+        for (int i = 0; i < plan.size(); i++) {
+            String title = plan.get(i).getTitle();
+            if (title != null && !texts.contains(title)) {
+                texts.add(title);
+            }
+        }
+        return texts.toArray(new String[0]);
+    }
+
+    private void startForegroundMode() {
+        foreground = true;
+        // keep the service alive when the screen unbinds
+        startService(new Intent(this, WorkoutService.class));
+        startForeground(NOTIFICATION_ID, buildNotification());
+    }
+
+    private void stopForegroundMode() {
+        if (wakeLock.isHeld()) {
+            wakeLock.release();
+        }
+        if (foreground) {
+            foreground = false;
+            stopForeground(true);
+            stopSelf();
+        }
+    }
+
+    /**
+     * Go to the foreground once a session is started (a skip starts one too),
+     * hold the wake lock only while the countdown runs and show the new state.
+     */
+    private void updateState() {
+        if (!session.isStarted()) {
+            return;
+        }
+        if (!foreground) {
+            startForegroundMode();
+            shownSecond = -1;
+        }
+        if (session.isRunning()) {
+            wakeLock.acquire();
+        } else if (wakeLock.isHeld()) {
+            wakeLock.release();
+        }
+        updateNotification(session.getRemaining());
+    }
+
+    private Notification buildNotification() {
+        if (notification == null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                NotificationChannel channel = new NotificationChannel(CHANNEL,
+                        getString(R.string.notification_channel), NotificationManager.IMPORTANCE_LOW);
+                notificationManager.createNotificationChannel(channel);
+                notification = new Notification.Builder(this, CHANNEL);
+            } else {
+                notification = new Notification.Builder(this);
+            }
+
+            Intent intent = new Intent(this, MainActivity.class);
+            intent.setFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+            int flags = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0;
+
+            notification.setSmallIcon(R.drawable.timer)
+                    .setContentIntent(PendingIntent.getActivity(this, 0, intent, flags))
+                    .setOngoing(true)
+                    .setOnlyAlertOnce(true);
+        }
+        Phase phase = session.getCurrentPhase();
+        if (phase != shownPhase) {
+            shownPhase = phase;
+            notification.setContentTitle(PhaseResources.titleText(this, phase));
+        }
+        return notification.build();
+    }
+
+    /**
+     * Refresh the notification when the shown second, the phase or the
+     * paused state changes.
+     */
+    private void updateNotification(long millisUntilFinished) {
+        long second = (millisUntilFinished + 999) / 1000;
+        boolean paused = !session.isRunning();
+        if (!foreground || (second == shownSecond && paused == shownPaused
+                && session.getCurrentPhase() == shownPhase)) {
+            return;
+        }
+        shownSecond = second;
+        shownPaused = paused;
+
+        // m:ss without a formatter
+        notificationText.setLength(0);
+        if (paused) {
+            notificationText.append(getString(R.string.notification_paused)).append(" – ");
+        }
+        notificationText.append(second / 60).append(':');
+        if (second % 60 < 10) {
+            notificationText.append('0');
+        }
+        notificationText.append(second % 60);
+        notification.setContentText(notificationText.toString());
+        notificationManager.notify(NOTIFICATION_ID, buildNotification());
+    }
+
+    @Override
+    public void onPhaseStarted(Phase phase) {
+        prepareAudio();
+        if (seeking) {
+            seeking = false;
+            seekCues(phase.getDurationMs());
+        }
+        checkpoint.save(session);
+
+        if (display != null) {
+            display.onPhaseStarted(phase);
+        }
+    }
+
+    @Override
+    public void onTick(Phase phase, long millisUntilFinished) {
+        // everything that became due since the last tick, including the
+        // whistle of a phase that just ended
+        advanceCues();
+        updateNotification(millisUntilFinished);
+
+        if (display != null) {
+            display.onTick(phase, millisUntilFinished);
+        }
+    }
+
+    @Override
+    public void onPhaseCompleted(Phase phase) {
+        if (phase.getRecordedMs() > 0) {
+            // Track overall and daily statistics with actual workout duration
+            DailyStatsHelper.recordExercise(this, phase.getExercise(), PhaseResources.titleText(this, phase),
+                    phase.getRecordedMs(), session.getRepetition());
+        }
+
+        if (display != null) {
+            display.onPhaseCompleted(phase);
+        }
+    }
+
+    @Override
+    public void onSessionFinished() {
+        cueHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                cuePlayer.finish();
+            }
+        });
+        speak(R.string.end);
+        checkpoint.clear();
+        stopForegroundMode();
+        handler.postDelayed(releaseAudioRunnable, RELEASE_DELAY);
+
+        if (display != null) {
+            display.onSessionFinished();
+        }
+    }
+}
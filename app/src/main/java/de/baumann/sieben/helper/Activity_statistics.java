@@ -19,24 +19,23 @@
 
 package de.baumann.sieben.helper;
 
+import android.content.Context;
 import android.content.DialogInterface;
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
-import android.database.Cursor;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.DividerItemDecoration;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.Toolbar;
-import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.ListView;
-import android.widget.SimpleCursorAdapter;
+import android.widget.RadioGroup;
 import android.widget.TextView;
 
 import com.github.mikephil.charting.charts.BarChart;
@@ -49,18 +48,22 @@ import com.github.mikephil.charting.formatter.ValueFormatter;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import de.baumann.sieben.R;
 
-public class Activity_statistics extends AppCompatActivity {
+public class Activity_statistics extends AppCompatActivity implements StatsLoader.Callback {
 
-    private ListView listView = null;
-    private DbAdapter_Statistics db;
+    private View header;
+    private StatsListAdapter adapter;
+    private BitmapLoader thumbnails;
     private SharedPreferences sharedPref;
+    private StatsSnapshot snapshot;
+    private int historyKind = StatsBuckets.WEEK;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -69,15 +72,9 @@ public class Activity_statistics extends AppCompatActivity {
         setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_PORTRAIT);
         setContentView(R.layout.activity_statistics);
 
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings, false);
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings_exercises, false);
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings_duration, false);
         sharedPref = PreferenceManager.getDefaultSharedPreferences(Activity_statistics.this);
         setTitle();
 
-        deleteDatabase("ex_v01.db");
-
-
         Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
         ActionBar actionBar = getSupportActionBar();
@@ -85,169 +82,129 @@ public class Activity_statistics extends AppCompatActivity {
             actionBar.setDisplayHomeAsUpEnabled(true);
         }
 
-        listView = (ListView)findViewById(R.id.list);
+        RecyclerView recyclerView = (RecyclerView) findViewById(R.id.list);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
+        // the header is a single view instance, it must not be animated as a copy
+        recyclerView.setItemAnimator(null);
+        header = getLayoutInflater().inflate(R.layout.stat_header, recyclerView, false);
+        thumbnails = new BitmapLoader(getResources(),
+                getResources().getDimensionPixelSize(R.dimen.stat_icon_size));
+        adapter = new StatsListAdapter(header, thumbnails);
+        recyclerView.setAdapter(adapter);
+
+        // the charts show nothing until the statistics are loaded
+        ((BarChart) header.findViewById(R.id.weekChart)).setNoDataText("");
+        ((BarChart) header.findViewById(R.id.ytdChart)).setNoDataText("");
+        ((BarChart) header.findViewById(R.id.historyChart)).setNoDataText("");
+
+        RadioGroup historyZoom = (RadioGroup) header.findViewById(R.id.historyZoom);
+        historyZoom.setOnCheckedChangeListener(new RadioGroup.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(RadioGroup group, int checkedId) {
+                if (checkedId == R.id.historyDay) {
+                    historyKind = StatsBuckets.DAY;
+                } else if (checkedId == R.id.historyMonth) {
+                    historyKind = StatsBuckets.MONTH;
+                } else if (checkedId == R.id.historyYear) {
+                    historyKind = StatsBuckets.YEAR;
+                } else {
+                    historyKind = StatsBuckets.WEEK;
+                }
+                setHistoryOverview();
+            }
+        });
+
+        StatsLoader.load(this, this);
+    }
 
-        //calling Notes_DbAdapter
-        db = new DbAdapter_Statistics(this);
-        db.open();
+    @Override
+    public void onStatsLoaded(StatsSnapshot snapshot) {
+        this.snapshot = snapshot;
 
         setWeekOverview();
         setYTDOverview();
+        setHistoryOverview();
 
         setFilesList();
     }
 
-    private void insert(String name, String icon , int time, int number) {
-
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings, false);
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings_exercises, false);
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings_duration, false);
-        sharedPref = PreferenceManager.getDefaultSharedPreferences(Activity_statistics.this);
+    private static final int[] TITLES = {
+            R.string.act, R.string.act_2, R.string.act_3, R.string.act_4,
+            R.string.act_5, R.string.act_6, R.string.act_7, R.string.act_8,
+            R.string.act_9, R.string.act_10, R.string.act_11, R.string.act_12
+    };
 
-        db = new DbAdapter_Statistics(this);
-        db.open();
+    private static final int[] ICONS = {
+            R.drawable.a01b, R.drawable.a02b, R.drawable.a03b, R.drawable.a04b,
+            R.drawable.a05b, R.drawable.a06b, R.drawable.a07b, R.drawable.a08b,
+            R.drawable.a09b, R.drawable.a10b, R.drawable.a11b, R.drawable.a12b
+    };
 
-        String hms = String.format(Locale.getDefault(), "%02d:%02d:%02d", TimeUnit.MILLISECONDS.toHours(time),
-                TimeUnit.MILLISECONDS.toMinutes(time) % TimeUnit.HOURS.toMinutes(1),
-                TimeUnit.MILLISECONDS.toSeconds(time) % TimeUnit.MINUTES.toSeconds(1));
-
-        String number_int;
-        if (number < 10) {
-            number_int = "00" + String.valueOf(number);
-        } else if (number >= 10 && number < 100) {
-            number_int = "0" + String.valueOf(number);
-        } else {
-            number_int = String.valueOf(number);
+    private void setFilesList() {
+        if (snapshot == null) {
+            return;
         }
 
-        String number_string = String.valueOf(number);
-
-        long seconds;
-        String average_int;
-        if (number > 0) {
-            seconds = (time / number);
-            average_int = String.format(Locale.getDefault(), "%02d:%02d", TimeUnit.MILLISECONDS.toMinutes(seconds),
-                    TimeUnit.MILLISECONDS.toSeconds(seconds) % TimeUnit.MINUTES.toSeconds(1));
-        } else {
-            average_int = "00:00";
+        List<StatsSnapshot.ExerciseRow> rows = new ArrayList<>(snapshot.getRows());
+        Comparator<StatsSnapshot.ExerciseRow> comparator = getComparator(sharedPref.getString("sortDBF", DbAdapter_Statistics.SORT_TITLE));
+        if (comparator != null) {
+            Collections.sort(rows, comparator);
         }
 
-        db.insert(name, getString(R.string.stat_time) + " " + hms, icon,
-                getString(R.string.stat_number) + " " + number_string,
-                getString(R.string.stat_average) + " " + average_int,
-                number_int, average_int);
-        Log.w("Seven", "Exercise added");
-    }
-
-    private void setFilesList() {
-
-        insert(getString(R.string.act), "01", sharedPref.getInt("ex1_time", 0), sharedPref.getInt("ex1_number", 0));
-        insert(getString(R.string.act_2), "02", sharedPref.getInt("ex2_time", 0), sharedPref.getInt("ex2_number", 0));
-        insert(getString(R.string.act_3), "03", sharedPref.getInt("ex3_time", 0), sharedPref.getInt("ex3_number", 0));
-        insert(getString(R.string.act_4), "04", sharedPref.getInt("ex4_time", 0), sharedPref.getInt("ex4_number", 0));
-        insert(getString(R.string.act_5), "05", sharedPref.getInt("ex5_time", 0), sharedPref.getInt("ex5_number", 0));
-        insert(getString(R.string.act_6), "06", sharedPref.getInt("ex6_time", 0), sharedPref.getInt("ex6_number", 0));
-        insert(getString(R.string.act_7), "07", sharedPref.getInt("ex7_time", 0), sharedPref.getInt("ex7_number", 0));
-        insert(getString(R.string.act_8), "08", sharedPref.getInt("ex8_time", 0), sharedPref.getInt("ex8_number", 0));
-        insert(getString(R.string.act_9), "09", sharedPref.getInt("ex9_time", 0), sharedPref.getInt("ex9_number", 0));
-        insert(getString(R.string.act_10), "10", sharedPref.getInt("ex10_time", 0), sharedPref.getInt("ex10_number", 0));
-        insert(getString(R.string.act_11), "11", sharedPref.getInt("ex11_time", 0), sharedPref.getInt("ex11_number", 0));
-        insert(getString(R.string.act_12), "12", sharedPref.getInt("ex12_time", 0), sharedPref.getInt("ex12_number", 0));
-
-        //display data
-        final int layoutstyle=R.layout.list_item;
-        int[] xml_id = new int[] {
-                R.id.textView_title,
-                R.id.textView_hms,
-                R.id.textView_number,
-                R.id.textView_average
-        };
-        String[] column = new String[] {
-                "ex_title",
-                "ex_hms",
-                "ex_number",
-                "ex_average"
-        };
-        final Cursor row = db.fetchAllData(this);
-        SimpleCursorAdapter adapter = new SimpleCursorAdapter(this, layoutstyle, row, column, xml_id, 0) {
-            @Override
-            public View getView(final int position, View convertView, ViewGroup parent) {
-
-                Cursor row2 = (Cursor) listView.getItemAtPosition(position);
-                final String ex_icon = row2.getString(row2.getColumnIndexOrThrow("ex_icon"));
-
-                View v = super.getView(position, convertView, parent);
-                final ImageView iv = (ImageView) v.findViewById(R.id.icon_notes);
-
-                switch (ex_icon) {
-                    case "01":
-                        iv.setImageResource(R.drawable.a01b);
-                        break;
-                    case "02":
-                        iv.setImageResource(R.drawable.a02b);
-                        break;
-                    case "03":
-                        iv.setImageResource(R.drawable.a03b);
-                        break;
-                    case "04":
-                        iv.setImageResource(R.drawable.a04b);
-                        break;
-                    case "05":
-                        iv.setImageResource(R.drawable.a05b);
-                        break;
-                    case "06":
-                        iv.setImageResource(R.drawable.a06b);
-                        break;
-                    case "07":
-                        iv.setImageResource(R.drawable.a07b);
-                        break;
-                    case "08":
-                        iv.setImageResource(R.drawable.a08b);
-                        break;
-                    case "09":
-                        iv.setImageResource(R.drawable.a09b);
-                        break;
-                    case "10":
-                        iv.setImageResource(R.drawable.a10b);
-                        break;
-                    case "11":
-                        iv.setImageResource(R.drawable.a11b);
-                        break;
-                    case "12":
-                        iv.setImageResource(R.drawable.a12b);
-                        break;
-                    default:
-                        iv.setImageResource(R.drawable.a01b);
-                        break;
-                }
-
-                return v;
-            }
-        };
-
-        listView.setAdapter(adapter);
-        setListViewHeightBasedOnChildren(listView);
-    }
-
-    private void setListViewHeightBasedOnChildren(ListView listView) {
-        SimpleCursorAdapter adapter = (SimpleCursorAdapter) listView.getAdapter();
-        if (adapter == null) {
-            return;
+        // format every row once, binding only sets the texts
+        String timeLabel = getString(R.string.stat_time);
+        String numberLabel = getString(R.string.stat_number);
+        String averageLabel = getString(R.string.stat_average);
+        List<StatsListAdapter.RowModel> models = new ArrayList<>(rows.size());
+        for (StatsSnapshot.ExerciseRow row : rows) {
+            int exercise = row.getExercise();
+            int index = exercise >= 1 && exercise <= DbAdapter_Statistics.EXERCISES ? exercise - 1 : 0;
+            // exercises of custom programs show their own title
+            int icon = row.getTitle() != null ? R.drawable.icon_intro : ICONS[index];
+            String title = row.getTitle() != null ? row.getTitle() : getString(TITLES[index]);
+
+            long time = row.getTimeMs();
+            String hms = String.format(Locale.getDefault(), "%02d:%02d:%02d", TimeUnit.MILLISECONDS.toHours(time),
+                    TimeUnit.MILLISECONDS.toMinutes(time) % TimeUnit.HOURS.toMinutes(1),
+                    TimeUnit.MILLISECONDS.toSeconds(time) % TimeUnit.MINUTES.toSeconds(1));
+            long average = row.getAverageMs();
+            String average_int = String.format(Locale.getDefault(), "%02d:%02d", TimeUnit.MILLISECONDS.toMinutes(average),
+                    TimeUnit.MILLISECONDS.toSeconds(average) % TimeUnit.MINUTES.toSeconds(1));
+
+            models.add(new StatsListAdapter.RowModel(exercise, icon, title,
+                    timeLabel + " " + hms, numberLabel + " " + row.getNumber(), averageLabel + " " + average_int));
         }
+        adapter.setRows(models);
+    }
 
-        int totalHeight = 0;
-        int desiredWidth = View.MeasureSpec.makeMeasureSpec(listView.getWidth(), View.MeasureSpec.AT_MOST);
-        View listItem = null;
-        for (int i = 0; i < adapter.getCount(); i++) {
-            listItem = adapter.getView(i, listItem, listView);
-            listItem.measure(desiredWidth, View.MeasureSpec.UNSPECIFIED);
-            totalHeight += listItem.getMeasuredHeight();
+    private static Comparator<StatsSnapshot.ExerciseRow> getComparator(String sort) {
+        switch (sort) {
+            case DbAdapter_Statistics.SORT_NUMBER:
+                return new Comparator<StatsSnapshot.ExerciseRow>() {
+                    @Override
+                    public int compare(StatsSnapshot.ExerciseRow a, StatsSnapshot.ExerciseRow b) {
+                        return Integer.compare(b.getNumber(), a.getNumber());
+                    }
+                };
+            case DbAdapter_Statistics.SORT_HMS:
+                return new Comparator<StatsSnapshot.ExerciseRow>() {
+                    @Override
+                    public int compare(StatsSnapshot.ExerciseRow a, StatsSnapshot.ExerciseRow b) {
+                        return Long.compare(b.getTimeMs(), a.getTimeMs());
+                    }
+                };
+            case DbAdapter_Statistics.SORT_AVERAGE:
+                return new Comparator<StatsSnapshot.ExerciseRow>() {
+                    @Override
+                    public int compare(StatsSnapshot.ExerciseRow a, StatsSnapshot.ExerciseRow b) {
+                        return Long.compare(b.getAverageMs(), a.getAverageMs());
+                    }
+                };
+            default:
+                // rows are ordered by exercise
+                return null;
         }
-
-        ViewGroup.LayoutParams params = listView.getLayoutParams();
-        params.height = totalHeight + (listView.getDividerHeight() * (adapter.getCount() - 1));
-        listView.setLayoutParams(params);
-        listView.requestLayout();
     }
 
     private void setTitle () {
@@ -262,26 +219,20 @@ public class Activity_statistics extends AppCompatActivity {
         }
     }
 
-    private void reset (String number, String time) {
-        sharedPref.edit().putInt(number, 0).apply();
-        sharedPref.edit().putInt(time, 0).apply();
-    }
-
     private void setWeekOverview() {
         // Get views
-        TextView weekTotalExercises = (TextView) findViewById(R.id.weekTotalExercises);
-        TextView weekTotalTime = (TextView) findViewById(R.id.weekTotalTime);
-        TextView weekCalories = (TextView) findViewById(R.id.weekCalories);
-        TextView weekAvgDaily = (TextView) findViewById(R.id.weekAvgDaily);
-        BarChart weekChart = (BarChart) findViewById(R.id.weekChart);
+        TextView weekTotalExercises = (TextView) header.findViewById(R.id.weekTotalExercises);
+        TextView weekTotalTime = (TextView) header.findViewById(R.id.weekTotalTime);
+        TextView weekCalories = (TextView) header.findViewById(R.id.weekCalories);
+        TextView weekAvgDaily = (TextView) header.findViewById(R.id.weekAvgDaily);
+        BarChart weekChart = (BarChart) header.findViewById(R.id.weekChart);
         
         if (weekTotalExercises != null && weekChart != null) {
             // Get weekly statistics
-            int weekTotal = DailyStatsHelper.getWeeklyTotal(this);
-            long weekTimeMs = DailyStatsHelper.getWeeklyTotalTime(this);
-            int weekCaloriesCount = DailyStatsHelper.getWeeklyCalories(this);
-            float weekAvg = DailyStatsHelper.getWeeklyAverage(this);
-            int[] dailyCounts = DailyStatsHelper.getWeeklyDailyCounts(this);
+            int weekTotal = snapshot.getWeekTotal();
+            long weekTimeMs = snapshot.getWeekTimeMs();
+            int weekCaloriesCount = snapshot.getWeekCalories();
+            float weekAvg = snapshot.getWeekAverage();
             
             // Set summary card values
             weekTotalExercises.setText(String.valueOf(weekTotal));
@@ -311,8 +262,8 @@ public class Activity_statistics extends AppCompatActivity {
                 getString(R.string.stat_day_sat)
             };
             
-            for (int i = 0; i < dailyCounts.length; i++) {
-                entries.add(new BarEntry(i, dailyCounts[i]));
+            for (int i = 0; i < 7; i++) {
+                entries.add(new BarEntry(i, snapshot.getWeekDailyCount(i)));
             }
             
             // Create dataset
@@ -367,21 +318,20 @@ public class Activity_statistics extends AppCompatActivity {
     }
 
     private void setYTDOverview() {
-        TextView ytdTotalText = (TextView) findViewById(R.id.ytdTotalText);
-        BarChart ytdChart = (BarChart) findViewById(R.id.ytdChart);
+        TextView ytdTotalText = (TextView) header.findViewById(R.id.ytdTotalText);
+        BarChart ytdChart = (BarChart) header.findViewById(R.id.ytdChart);
         
         if (ytdTotalText != null && ytdChart != null) {
             // Get YTD statistics
-            Map<Integer, Integer> ytdStats = DailyStatsHelper.getYTDWeeklyStats(this);
-            int ytdTotal = DailyStatsHelper.getYTDTotal(this);
+            int ytdTotal = snapshot.getYtdTotal();
             
             // Set total text
             ytdTotalText.setText(getString(R.string.stat_ytd_total) + " " + ytdTotal + " " + getString(R.string.stat_week_exercises));
             
             // Prepare chart data
             List<BarEntry> entries = new ArrayList<>();
-            for (Map.Entry<Integer, Integer> entry : ytdStats.entrySet()) {
-                entries.add(new BarEntry(entry.getKey(), entry.getValue()));
+            for (int week = 1; week <= snapshot.getYtdWeeks(); week++) {
+                entries.add(new BarEntry(week, snapshot.getYtdWeekCount(week)));
             }
             
             // Create dataset
@@ -429,6 +379,76 @@ public class Activity_statistics extends AppCompatActivity {
         }
     }
 
+    private void setHistoryOverview() {
+        BarChart historyChart = (BarChart) header.findViewById(R.id.historyChart);
+
+        if (snapshot != null && historyChart != null) {
+            final StatsSnapshot.History history = snapshot.getHistory(historyKind);
+
+            // Prepare chart data, at most StatsLoader.HISTORY_BARS bars per zoom level
+            List<BarEntry> entries = new ArrayList<>(history.size());
+            for (int i = 0; i < history.size(); i++) {
+                entries.add(new BarEntry(i, history.getCount(i)));
+            }
+
+            // Create dataset
+            BarDataSet dataSet = new BarDataSet(entries, getString(R.string.stat_history_overview));
+            dataSet.setColor(Color.parseColor("#2196F3")); // Material Blue
+            dataSet.setValueTextColor(Color.BLACK);
+            dataSet.setValueTextSize(10f);
+
+            // Create BarData
+            BarData barData = new BarData(dataSet);
+            barData.setBarWidth(0.8f);
+
+            // Configure chart
+            historyChart.fitScreen();
+            historyChart.setData(barData);
+            historyChart.setFitBars(true);
+            historyChart.getDescription().setEnabled(false);
+            historyChart.setDrawGridBackground(false);
+            historyChart.getLegend().setEnabled(false);
+            historyChart.setScaleYEnabled(false);
+
+            // Configure X-axis
+            XAxis xAxis = historyChart.getXAxis();
+            xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+            xAxis.setDrawGridLines(false);
+            xAxis.setGranularity(1f);
+            xAxis.setValueFormatter(new ValueFormatter() {
+                @Override
+                public String getFormattedValue(float value) {
+                    int index = (int) value;
+                    if (index >= 0 && index < history.size()) {
+                        return history.getLabel(index);
+                    }
+                    return "";
+                }
+            });
+
+            // Configure Y-axis
+            YAxis leftAxis = historyChart.getAxisLeft();
+            leftAxis.setDrawGridLines(true);
+            leftAxis.setAxisMinimum(0f);
+            leftAxis.setGranularity(1f);
+
+            YAxis rightAxis = historyChart.getAxisRight();
+            rightAxis.setEnabled(false);
+
+            // Show the most recent buckets, older ones are reached by panning
+            historyChart.setVisibleXRangeMaximum(historyKind == StatsBuckets.DAY ? 14
+                    : historyKind == StatsBuckets.YEAR ? 10 : 12);
+            historyChart.moveViewToX(history.size() - 1);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        StatsLoader.cancel(this);
+        thumbnails.shutdown();
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         // Inflate the menu; this adds items to the action bar if it is present.
@@ -474,18 +494,13 @@ public class Activity_statistics extends AppCompatActivity {
                     .setPositiveButton(R.string.app_ok, new DialogInterface.OnClickListener() {
 
                         public void onClick(DialogInterface dialog, int whichButton) {
-                            reset("ex1_number", "ex1_time");
-                            reset("ex2_number", "ex2_time");
-                            reset("ex3_number", "ex3_time");
-                            reset("ex4_number", "ex4_time");
-                            reset("ex5_number", "ex5_time");
-                            reset("ex6_number", "ex6_time");
-                            reset("ex7_number", "ex7_time");
-                            reset("ex8_number", "ex8_time");
-                            reset("ex9_number", "ex9_time");
-                            reset("ex10_number", "ex10_time");
-                            reset("ex11_number", "ex11_time");
-                            reset("ex12_number", "ex12_time");
+                            final Context context = getApplicationContext();
+                            StatsLoader.update(new Runnable() {
+                                @Override
+                                public void run() {
+                                    DbAdapter_Statistics.get(context).reset();
+                                }
+                            });
                             finish();
                         }
                     })
@@ -0,0 +1,183 @@
+package de.baumann.sieben.helper;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the exercise illustrations into image views. Bitmaps are decoded on
+ * a background thread at the size they are shown instead of their native
+ * resolution and kept in a small LRU cache, so the image of the next phase
+ * can be prefetched while the current one runs, and list rows decode each
+ * icon once.
+ */
+public class BitmapLoader {
+
+    private final Resources resources;
+    private final ImageView imageView;
+    // fixed width and height of the images, 0 for the size of the view
+    private final int size;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final LruCache<Integer, Bitmap> cache;
+
+    /**
+     * A loader for one view, images are decoded at its size.
+     */
+    public BitmapLoader(ImageView imageView) {
+        this(imageView.getResources(), imageView, 0);
+    }
+
+    /**
+     * A loader for many small views, e.g. the icons of list rows.
+     * @param size width and height of the images in px
+     */
+    BitmapLoader(Resources resources, int size) {
+        this(resources, null, size);
+    }
+
+    private BitmapLoader(Resources resources, ImageView imageView, int size) {
+        this.resources = resources;
+        this.imageView = imageView;
+        this.size = size;
+
+        // a few screen sized images, but never more than 1/16 of the heap
+        int maxKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 16);
+        cache = new LruCache<Integer, Bitmap>(maxKb) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+    }
+
+    /**
+     * Show an image in the loader's view, straight from the cache if it was
+     * prefetched.
+     */
+    public void load(int resId) {
+        show(imageView, resId);
+    }
+
+    /**
+     * Show an image in one of many views. A recycled view stays empty until
+     * its image is decoded and only gets the image it was last bound to.
+     */
+    void bind(ImageView view, int resId) {
+        if (cache.get(resId) == null) {
+            view.setImageDrawable(null);
+        }
+        show(view, resId);
+    }
+
+    private void show(final ImageView view, final int resId) {
+        // resource the view should show, decodes for anything else are only cached
+        view.setTag(resId);
+        Bitmap cached = cache.get(resId);
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+        final int width = targetWidth(view);
+        final int height = targetHeight(view);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = decode(resId, width, height);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (bitmap != null && Integer.valueOf(resId).equals(view.getTag())) {
+                            view.setImageBitmap(bitmap);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Decode an image in the background so a later {@link #load(int)} is instant.
+     */
+    public void prefetch(final int resId) {
+        if (cache.get(resId) != null) {
+            return;
+        }
+        final int width = targetWidth(imageView);
+        final int height = targetHeight(imageView);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                decode(resId, width, height);
+            }
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        cache.evictAll();
+    }
+
+    // runs on the executor
+    private Bitmap decode(int resId, int width, int height) {
+        Bitmap bitmap = cache.get(resId);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resId, options);
+
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        if (bitmap != null) {
+            cache.put(resId, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return the largest power of two that keeps the image at least as big as the target
+     */
+    static int sampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= reqWidth && height / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private int targetWidth(ImageView view) {
+        if (size > 0) {
+            return size;
+        }
+        int width = view != null ? view.getWidth() : 0;
+        if (width > 0) {
+            return width;
+        }
+        DisplayMetrics metrics = resources.getDisplayMetrics();
+        return metrics.widthPixels;
+    }
+
+    private int targetHeight(ImageView view) {
+        if (size > 0) {
+            return size;
+        }
+        int height = view != null ? view.getHeight() : 0;
+        if (height > 0) {
+            return height;
+        }
+        DisplayMetrics metrics = resources.getDisplayMetrics();
+        return metrics.heightPixels;
+    }
+}
@@ -0,0 +1,97 @@
+package de.baumann.sieben.helper;
+
+/**
+ * Energy of a performed exercise from its MET value, the duration and the
+ * body weight. {@link DbAdapter_Events} stores the result with every event
+ * and sums it up in the rollups, so a range of days, weeks, months or years
+ * is a sum of cached values and later weight changes do not rewrite the past.
+ * Free of Android dependencies.
+ */
+public final class CalorieEngine {
+
+    // MET (Metabolic Equivalent of Task) values for the 7-minute workout exercises
+    // Based on the Compendium of Physical Activities and research on HICT
+    // Source: Ainsworth BE et al. (2011) Compendium of Physical Activities
+    private static final double MET_JUMPING_JACKS = 8.0;      // Vigorous calisthenics
+    private static final double MET_WALL_SIT = 5.0;           // Isometric exercise
+    private static final double MET_PUSH_UPS = 8.0;           // Vigorous effort
+    private static final double MET_ABDOMINAL_CRUNCH = 4.5;   // Moderate calisthenics
+    private static final double MET_STEP_UP = 8.0;            // Vigorous step exercise
+    private static final double MET_SQUAT = 5.5;              // Moderate resistance
+    private static final double MET_TRICEPS_DIPS = 5.0;       // Moderate resistance
+    private static final double MET_PLANK = 4.0;              // Isometric core
+    private static final double MET_HIGH_KNEES = 10.0;        // Running in place vigorous
+    private static final double MET_LUNGE = 4.0;              // Moderate resistance
+    private static final double MET_PUSH_UP_ROTATION = 8.5;   // Advanced variation
+    private static final double MET_SIDE_PLANK = 4.5;         // Isometric core
+
+    // Average MET for the 7-minute workout circuit, used for events of an unknown exercise
+    // (8.0 + 5.0 + 8.0 + 4.5 + 8.0 + 5.5 + 5.0 + 4.0 + 10.0 + 4.0 + 8.5 + 4.5) / 12 = 6.25
+    private static final double AVERAGE_MET_VALUE = 6.25;
+
+    // indexed by exercise number, 0 = unknown
+    private static final double[] MET = {
+            AVERAGE_MET_VALUE,
+            MET_JUMPING_JACKS, MET_WALL_SIT, MET_PUSH_UPS, MET_ABDOMINAL_CRUNCH,
+            MET_STEP_UP, MET_SQUAT, MET_TRICEPS_DIPS, MET_PLANK,
+            MET_HIGH_KNEES, MET_LUNGE, MET_PUSH_UP_ROTATION, MET_SIDE_PLANK
+    };
+
+    // Average adult weight in kg (used when user weight is not available)
+    // Based on global average of ~70kg for adults
+    static final double DEFAULT_WEIGHT_KG = 70.0;
+
+    // Calorie calculation: Calories = MET × Weight(kg) × Time(hours)
+    // For HICT (High-Intensity Circuit Training) like the 7-minute workout,
+    // we add a 15% bonus for EPOC (Excess Post-exercise Oxygen Consumption) effect
+    // EPOC represents continued calorie burn after high-intensity exercise
+    private static final double EPOC_MULTIPLIER = 1.15;
+
+    private static final double MILLIS_PER_HOUR = 1000.0 * 60.0 * 60.0;
+
+    // Example: 6.25 MET × 70kg × (1/60 hours) × 1.15 = 8.39 cal/min
+    // Note: This is a rough estimate. Actual calorie burn varies significantly based on
+    // individual factors such as weight, age, gender, fitness level, and exercise intensity.
+    // The 7-minute workout typically burns between 50-100 calories (7-14 cal/min).
+
+    private CalorieEngine() {
+    }
+
+    /**
+     * @param exercise exercise number (1..12), anything else counts as the average exercise
+     */
+    public static double met(int exercise) {
+        return exercise > 0 && exercise < MET.length ? MET[exercise] : AVERAGE_MET_VALUE;
+    }
+
+    /**
+     * @return calories (kcal) burned per millisecond of the exercise
+     */
+    public static double kcalPerMs(int exercise, double weightKg) {
+        return met(exercise) * weightKg * EPOC_MULTIPLIER / MILLIS_PER_HOUR;
+    }
+
+    /**
+     * Formula: Calories = MET × Weight(kg) × Time(hours) × EPOC_MULTIPLIER
+     * @return calories (kcal) burned in one performed exercise
+     */
+    public static double kcal(int exercise, long durationMs, double weightKg) {
+        return durationMs > 0 ? durationMs * kcalPerMs(exercise, weightKg) : 0;
+    }
+
+    /**
+     * @param weight the "weight" preference
+     * @return weight in kilograms, the default if it is not set or invalid
+     */
+    public static double parseWeight(String weight) {
+        if (weight == null) {
+            return DEFAULT_WEIGHT_KG;
+        }
+        try {
+            double kg = Double.parseDouble(weight.trim());
+            return kg > 0 ? kg : DEFAULT_WEIGHT_KG;
+        } catch (NumberFormatException e) {
+            return DEFAULT_WEIGHT_KG;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package de.baumann.sieben.helper;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Append-only log of performed exercises, one row per completed exercise.
+ * Replaces the daily_stats_yyyyMMdd / daily_time_yyyyMMdd preference keys,
+ * which made the default preferences file grow with every training day.
+ *
+ * Every event carries its energy (see {@link CalorieEngine}), computed with
+ * the body weight at the time it was recorded.
+ *
+ * Next to the log, count, time and energy are summed up per day, ISO week,
+ * month and year (see {@link StatsBuckets}). These rollups are updated together with
+ * every insert, so a range of n buckets is read as n rows. Both the insert and
+ * the rebuild sum the buckets up with {@link Rollups}.
+ *
+ * The overall totals per exercise (see {@link DbAdapter_Statistics}) live in
+ * the same database, so a completed exercise is a single transaction.
+ *
+ * Single days are also kept in a memory-mapped {@link DayFile}, derived from
+ * the log and rebuilt from it whenever the two disagree.
+ */
+public class DbAdapter_Events {
+
+    //define static variable
+    // versions before 5 were development builds only, none of them was released
+    private static final int dbVersion = 5;
+    private static final String dbName = "events_v01.db";
+    static final String dbTable = "event_table";
+    private static final String rollupTable = "rollup_table";
+    static final String totalTable = "ex_table";
+
+    private static final String DAYS_FILE = "days.bin";
+    // copy of the preference totals kept by the statistics screen of older versions
+    private static final String OLD_TOTALS_DB = "ex_v01.db";
+
+    private static final String DAILY_STATS_PREFIX = "daily_stats_";
+    private static final String DAILY_TIME_PREFIX = "daily_time_";
+    private static final String MIGRATED_KEY = "daily_stats_migrated";
+
+    // exercise id of rows migrated from the per day keys, which did not record it;
+    // custom exercises get their own ids, see DbAdapter_Statistics#getCustomExercise
+    static final int EXERCISE_UNKNOWN = 0;
+
+    private static class DatabaseHelper extends SQLiteOpenHelper {
+
+        private final Context context;
+
+        DatabaseHelper(Context context) {
+            super(context, dbName, null, dbVersion);
+            this.context = context;
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + dbTable + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "ev_time INTEGER NOT NULL, "          // epoch millis
+                    + "ev_day INTEGER NOT NULL, "           // local date as yyyyMMdd
+                    + "ev_exercise INTEGER NOT NULL, "
+                    + "ev_duration INTEGER NOT NULL, "      // millis
+                    + "ev_repetition INTEGER NOT NULL, "
+                    + "ev_kcal REAL NOT NULL DEFAULT 0)");
+            db.execSQL("CREATE INDEX event_day ON " + dbTable + " (ev_day)");
+            createRollups(db);
+            createTotals(db);
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // no released version had an older schema, start over with the current one
+            db.execSQL("DROP TABLE IF EXISTS " + dbTable);
+            db.execSQL("DROP TABLE IF EXISTS " + rollupTable);
+            db.execSQL("DROP TABLE IF EXISTS " + totalTable);
+            onCreate(db);
+        }
+
+        private void createRollups(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + rollupTable + " ("
+                    + "ro_kind INTEGER NOT NULL, "          // StatsBuckets.DAY, WEEK, ...
+                    + "ro_bucket INTEGER NOT NULL, "
+                    + "ro_count INTEGER NOT NULL, "
+                    + "ro_duration INTEGER NOT NULL, "
+                    + "ro_kcal REAL NOT NULL DEFAULT 0, "
+                    + "PRIMARY KEY (ro_kind, ro_bucket))");
+        }
+
+        private void createTotals(SQLiteDatabase db) {
+            // _id is the exercise number (1..12) or the id of a custom exercise
+            // named by ex_title, times are millis
+            db.execSQL("CREATE TABLE " + totalTable + " (_id INTEGER PRIMARY KEY, "
+                    + "ex_number INTEGER NOT NULL DEFAULT 0, "
+                    + "ex_time INTEGER NOT NULL DEFAULT 0, "
+                    + "ex_average INTEGER NOT NULL DEFAULT 0, "
+                    + "ex_title TEXT)");
+            db.execSQL("CREATE UNIQUE INDEX ex_by_title ON " + totalTable + " (ex_title)");
+
+            // older versions kept the totals in the preferences
+            SharedPreferences sharedPref = PreferenceManager.getDefaultSharedPreferences(context);
+            ContentValues values = new ContentValues();
+            for (int i = 1; i <= DbAdapter_Statistics.EXERCISES; i++) {
+                long number = sharedPref.getInt("ex" + i + "_number", 0);
+                long time = sharedPref.getInt("ex" + i + "_time", 0);
+                values.put("_id", i);
+                values.put("ex_number", number);
+                values.put("ex_time", time);
+                values.put("ex_average", number > 0 ? time / number : 0);
+                db.insert(totalTable, null, values);
+            }
+        }
+    }
+
+    private static DbAdapter_Events instance;
+
+    private final SQLiteDatabase sqlDb;
+    private final SQLiteStatement addBucket;
+    private final SQLiteStatement updateBucket;
+    private final SQLiteStatement updateTotal;
+    private final Rollups rollups;
+    private DayFile days;
+
+    /**
+     * @return the shared adapter, the database stays open for the whole process
+     */
+    public static synchronized DbAdapter_Events get(Context context) {
+        if (instance == null) {
+            instance = new DbAdapter_Events(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private DbAdapter_Events(Context context) {
+        sqlDb = new DatabaseHelper(context).getWritableDatabase();
+        addBucket = sqlDb.compileStatement("INSERT OR IGNORE INTO " + rollupTable
+                + " (ro_kind, ro_bucket, ro_count, ro_duration) VALUES (?, ?, 0, 0)");
+        updateBucket = sqlDb.compileStatement("UPDATE " + rollupTable
+                + " SET ro_count = ro_count + ?, ro_duration = ro_duration + ?, ro_kcal = ro_kcal + ?"
+                + " WHERE ro_kind = ? AND ro_bucket = ?");
+        // SQLite evaluates all SET expressions with the old values
+        updateTotal = sqlDb.compileStatement("UPDATE " + totalTable
+                + " SET ex_number = ex_number + 1, ex_time = ex_time + ?1, "
+                + "ex_average = (ex_time + ?1) / (ex_number + 1) WHERE _id = ?2");
+        rollups = new Rollups(new Rollups.Sink() {
+            @Override
+            public void put(int kind, int bucket, int count, long durationMs, double kcal) {
+                addBucket.bindLong(1, kind);
+                addBucket.bindLong(2, bucket);
+                addBucket.executeInsert();
+                updateBucket.bindLong(1, count);
+                updateBucket.bindLong(2, durationMs);
+                updateBucket.bindDouble(3, kcal);
+                updateBucket.bindLong(4, kind);
+                updateBucket.bindLong(5, bucket);
+                updateBucket.executeUpdateDelete();
+            }
+        });
+        migrateDailyKeys(context);
+        openDays(context);
+
+        // replaced by the totals table
+        if (context.getDatabasePath(OLD_TOTALS_DB).exists()) {
+            context.deleteDatabase(OLD_TOTALS_DB);
+        }
+    }
+
+    SQLiteDatabase getDatabase() {
+        return sqlDb;
+    }
+
+    /**
+     * @return the day records, null if the file cannot be used
+     */
+    DayFile getDays() {
+        return days;
+    }
+
+    /**
+     * Append one performed exercise and add it to the rollups and the totals
+     * of the exercise, all in one transaction.
+     * @param weightKg body weight at the time, for the energy of the exercise
+     */
+    public void insert(long timeMs, int exercise, long durationMs, int repetition, double weightKg) {
+        double kcal = CalorieEngine.kcal(exercise, durationMs, weightKg);
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timeMs);
+
+        ContentValues values = new ContentValues();
+        values.put("ev_time", timeMs);
+        values.put("ev_day", DailyStatsHelper.getDay(calendar));
+        values.put("ev_exercise", exercise);
+        values.put("ev_duration", durationMs);
+        values.put("ev_repetition", repetition);
+        values.put("ev_kcal", kcal);
+
+        long event;
+        sqlDb.beginTransaction();
+        try {
+            event = sqlDb.insert(dbTable, null, values);
+            rollups.add(values.getAsInteger("ev_day"), 1, durationMs, kcal);
+            rollups.flush();
+            updateTotal.bindLong(1, durationMs);
+            updateTotal.bindLong(2, exercise);
+            updateTotal.executeUpdateDelete();
+            sqlDb.setTransactionSuccessful();
+        } finally {
+            sqlDb.endTransaction();
+        }
+        addToDays(values.getAsInteger("ev_day"), exercise, durationMs, event);
+    }
+
+    /**
+     * @param kind one of the {@link StatsBuckets} kinds
+     * @return one row per bucket with events in [fromBucket, toBucket]:
+     *   bucket, number of exercises, total millis, total kcal; ordered by bucket
+     */
+    public Cursor fetchRollups(int kind, int fromBucket, int toBucket) {
+        return sqlDb.rawQuery("SELECT ro_bucket, ro_count, ro_duration, ro_kcal FROM " + rollupTable
+                        + " WHERE ro_kind = ? AND ro_bucket BETWEEN ? AND ? ORDER BY ro_bucket",
+                new String[] {String.valueOf(kind), String.valueOf(fromBucket), String.valueOf(toBucket)});
+    }
+
+    /**
+     * @return the oldest bucket of the given kind with events, 0 if there are none
+     */
+    public int fetchFirstBucket(int kind) {
+        Cursor cursor = sqlDb.rawQuery("SELECT MIN(ro_bucket) FROM " + rollupTable + " WHERE ro_kind = ?",
+                new String[] {String.valueOf(kind)});
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void openDays(Context context) {
+        try {
+            days = new DayFile(new File(context.getFilesDir(), DAYS_FILE));
+            if (days.getLastEvent() != fetchLastEvent()) {
+                rebuildDays();
+            }
+        } catch (IOException e) {
+            Log.w("Seven", "Day file not available", e);
+            days = null;
+        }
+    }
+
+    private void addToDays(int day, int exercise, long durationMs, long event) {
+        if (days == null) {
+            return;
+        }
+        try {
+            if (!days.add(day, exercise, 1, durationMs, event)) {
+                // a day before the first record, e.g. after the clock was set back
+                rebuildDays();
+            }
+        } catch (IOException e) {
+            Log.w("Seven", "Day file not available", e);
+            days = null;
+        }
+    }
+
+    /**
+     * Recompute the day records from the event table.
+     */
+    private void rebuildDays() throws IOException {
+        long last = fetchLastEvent();
+        days.clear();
+        Cursor cursor = sqlDb.rawQuery("SELECT ev_day, ev_exercise, COUNT(*), SUM(ev_duration) FROM " + dbTable
+                + " GROUP BY ev_day, ev_exercise ORDER BY ev_day", null);
+        try {
+            while (cursor.moveToNext()) {
+                days.add(cursor.getInt(0), cursor.getInt(1), cursor.getInt(2), cursor.getLong(3), last);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return id of the newest event, 0 if there is none
+     */
+    private long fetchLastEvent() {
+        Cursor cursor = sqlDb.rawQuery("SELECT MAX(_id) FROM " + dbTable, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Recompute all rollups from the event table.
+     */
+    private static void rebuildRollups(final SQLiteDatabase db) {
+        db.delete(rollupTable, null, null);
+        final ContentValues values = new ContentValues();
+        Rollups rollups = new Rollups(new Rollups.Sink() {
+            @Override
+            public void put(int kind, int bucket, int count, long durationMs, double kcal) {
+                values.put("ro_kind", kind);
+                values.put("ro_bucket", bucket);
+                values.put("ro_count", count);
+                values.put("ro_duration", durationMs);
+                values.put("ro_kcal", kcal);
+                db.insert(rollupTable, null, values);
+            }
+        });
+        Cursor cursor = db.rawQuery("SELECT ev_day, COUNT(*), SUM(ev_duration), SUM(ev_kcal) FROM " + dbTable
+                + " GROUP BY ev_day ORDER BY ev_day", null);
+        try {
+            while (cursor.moveToNext()) {
+                rollups.add(cursor.getInt(0), cursor.getInt(1), cursor.getLong(2), cursor.getDouble(3));
+            }
+            rollups.flush();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Move the per day preference keys into the event table, once.
+     * Old days only know count and total time, so they become rows of an
+     * unknown exercise with the time split evenly.
+     */
+    private void migrateDailyKeys(Context context) {
+        SharedPreferences sharedPref = PreferenceManager.getDefaultSharedPreferences(context);
+        if (sharedPref.getBoolean(MIGRATED_KEY, false)) {
+            return;
+        }
+
+        Map<String, ?> all = sharedPref.getAll();
+        SharedPreferences.Editor editor = sharedPref.edit();
+        double weight = DailyStatsHelper.getUserWeight(context);
+
+        sqlDb.beginTransaction();
+        try {
+            // rows of an interrupted earlier attempt
+            sqlDb.delete(dbTable, "ev_exercise = ?", new String[] {String.valueOf(EXERCISE_UNKNOWN)});
+
+            for (Map.Entry<String, ?> entry : all.entrySet()) {
+                String key = entry.getKey();
+                if (key.startsWith(DAILY_TIME_PREFIX)) {
+                    editor.remove(key);
+                }
+                if (!key.startsWith(DAILY_STATS_PREFIX) || key.equals(MIGRATED_KEY)
+                        || !(entry.getValue() instanceof Integer)) {
+                    continue;
+                }
+                editor.remove(key);
+
+                int day;
+                try {
+                    day = Integer.parseInt(key.substring(DAILY_STATS_PREFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                int count = (Integer) entry.getValue();
+                Object time = all.get(DAILY_TIME_PREFIX + day);
+                long totalMs = time instanceof Long ? (Long) time : 0;
+
+                Calendar calendar = Calendar.getInstance();
+                calendar.clear();
+                calendar.set(day / 10000, (day / 100) % 100 - 1, day % 100, 12, 0);
+
+                for (int i = 0; i < count; i++) {
+                    long share = totalMs / count + (i == 0 ? totalMs % count : 0);
+                    ContentValues values = new ContentValues();
+                    values.put("ev_time", calendar.getTimeInMillis());
+                    values.put("ev_day", day);
+                    values.put("ev_exercise", EXERCISE_UNKNOWN);
+                    values.put("ev_duration", share);
+                    values.put("ev_repetition", 0);
+                    values.put("ev_kcal", CalorieEngine.kcal(EXERCISE_UNKNOWN, share, weight));
+                    sqlDb.insert(dbTable, null, values);
+                }
+            }
+            rebuildRollups(sqlDb);
+            sqlDb.setTransactionSuccessful();
+        } finally {
+            sqlDb.endTransaction();
+        }
+
+        editor.putBoolean(MIGRATED_KEY, true);
+        editor.commit();
+    }
+}
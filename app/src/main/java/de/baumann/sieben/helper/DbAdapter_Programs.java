@@ -0,0 +1,246 @@
+package de.baumann.sieben.helper;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.baumann.sieben.session.Phase;
+import de.baumann.sieben.session.WorkoutPlan;
+
+/**
+ * Workout programs as data: a name, the number of repetitions and the list
+ * of phases with their durations, cues and optional titles. The session
+ * runs a stored program like the built-in workout, see
+ * {@link WorkoutPlan#of(List, int)}; new programs are imported from JSON,
+ * see {@link #importJson(String)}.
+ */
+public class DbAdapter_Programs {
+
+    //define static variable
+    private static final int dbVersion = 1;
+    private static final String dbName = "programs_v01.db";
+    private static final String programTable = "program_table";
+    private static final String phaseTable = "phase_table";
+
+    private static final String[] TYPES = {"start", "exercise", "break", "side_change"};
+    private static final String[] SIDES = {"none", "right", "left"};
+    private static final String[] CUES = {"announce", "halfway", "countdown"};
+
+    private static class DatabaseHelper extends SQLiteOpenHelper {
+        DatabaseHelper(Context context) {
+            super(context, dbName, null, dbVersion);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + programTable + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "pr_name TEXT NOT NULL, "
+                    + "pr_repetitions INTEGER NOT NULL)");       // 0 = endless
+            db.execSQL("CREATE TABLE " + phaseTable + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "ph_program INTEGER NOT NULL, "
+                    + "ph_position INTEGER NOT NULL, "
+                    + "ph_type INTEGER NOT NULL, "               // Phase.TYPE_
+                    + "ph_exercise INTEGER NOT NULL, "
+                    + "ph_side INTEGER NOT NULL, "
+                    + "ph_duration INTEGER NOT NULL, "           // millis
+                    + "ph_recorded INTEGER NOT NULL, "           // millis
+                    + "ph_cues INTEGER NOT NULL, "               // Phase.CUE_ flags
+                    + "ph_title TEXT)");
+            db.execSQL("CREATE INDEX phase_program ON " + phaseTable + " (ph_program, ph_position)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        }
+    }
+
+    private static DbAdapter_Programs instance;
+
+    private final SQLiteDatabase sqlDb;
+
+    /**
+     * @return the shared adapter, the database stays open for the whole process
+     */
+    public static synchronized DbAdapter_Programs get(Context context) {
+        if (instance == null) {
+            instance = new DbAdapter_Programs(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private DbAdapter_Programs(Context context) {
+        sqlDb = new DatabaseHelper(context).getWritableDatabase();
+    }
+
+    /**
+     * @return _id and pr_name of every program, ordered by name
+     */
+    public Cursor fetchPrograms() {
+        return sqlDb.query(programTable, new String[] {"_id", "pr_name"}, null, null, null, null, "pr_name");
+    }
+
+    /**
+     * @return the compiled program, null if there is no such program
+     */
+    public WorkoutPlan load(long program) {
+        int repetitions;
+        Cursor cursor = sqlDb.query(programTable, new String[] {"pr_repetitions"}, "_id = ?",
+                new String[] {String.valueOf(program)}, null, null, null);
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            repetitions = cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+
+        List<Phase> phases = new ArrayList<>();
+        cursor = sqlDb.query(phaseTable, new String[] {"ph_type", "ph_exercise", "ph_side", "ph_duration",
+                        "ph_recorded", "ph_cues", "ph_title"}, "ph_program = ?",
+                new String[] {String.valueOf(program)}, null, null, "ph_position");
+        try {
+            while (cursor.moveToNext()) {
+                phases.add(new Phase(cursor.getInt(0), cursor.getInt(1), cursor.getInt(2), cursor.getLong(3),
+                        cursor.getLong(4), cursor.getInt(5), cursor.isNull(6) ? null : cursor.getString(6)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return phases.isEmpty() ? null : WorkoutPlan.of(phases, repetitions);
+    }
+
+    /**
+     * @param phases one repetition, starting with the lead-in
+     * @return the id of the new program
+     */
+    public long insert(String name, int repetitions, List<Phase> phases) {
+        sqlDb.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("pr_name", name);
+            values.put("pr_repetitions", repetitions);
+            long program = sqlDb.insert(programTable, null, values);
+
+            for (int i = 0; i < phases.size(); i++) {
+                Phase phase = phases.get(i);
+                values.clear();
+                values.put("ph_program", program);
+                values.put("ph_position", i);
+                values.put("ph_type", phase.getType());
+                values.put("ph_exercise", phase.getExercise());
+                values.put("ph_side", phase.getSide());
+                values.put("ph_duration", phase.getDurationMs());
+                values.put("ph_recorded", phase.getRecordedMs());
+                values.put("ph_cues", phase.getCues());
+                values.put("ph_title", phase.getTitle());
+                sqlDb.insert(phaseTable, null, values);
+            }
+            sqlDb.setTransactionSuccessful();
+            return program;
+        } finally {
+            sqlDb.endTransaction();
+        }
+    }
+
+    /**
+     * Store a program given as JSON, for example
+     * <pre>
+     * {"name": "Core", "repetitions": 2, "phases": [
+     *   {"type": "exercise", "exercise": 8, "duration": 45},
+     *   {"type": "break", "duration": 15},
+     *   {"type": "exercise", "title": "Burpees", "duration": 30, "cues": ["announce", "countdown"]}]}
+     * </pre>
+     * Durations are seconds. "exercise" is one of the built-in exercises
+     * (1..12), left out for others, which then need a "title". "side" is
+     * "right" or "left", "cues" any of "announce", "halfway" and "countdown".
+     * Exercises count for the statistics unless "recorded" is false. A
+     * 5 sec. lead-in is added if the program does not start with one.
+     * @return the id of the new program
+     * @throws JSONException if the text is not a valid program
+     */
+    public long importJson(String json) throws JSONException {
+        JSONObject program = new JSONObject(json);
+        String name = program.getString("name");
+        int repetitions = program.optInt("repetitions", 1);
+        if (repetitions < 0) {
+            throw new JSONException("repetitions must not be negative");
+        }
+
+        JSONArray array = program.getJSONArray("phases");
+        List<Phase> phases = new ArrayList<>(array.length() + 1);
+        for (int i = 0; i < array.length(); i++) {
+            phases.add(parsePhase(array.getJSONObject(i)));
+        }
+        if (phases.isEmpty()) {
+            throw new JSONException("no phases");
+        }
+
+        // breaks and the lead-in show the exercise coming up next
+        int upcoming = Phase.EXERCISE_CUSTOM;
+        for (int i = phases.size() - 1; i >= 0; i--) {
+            Phase phase = phases.get(i);
+            if (phase.getType() == Phase.TYPE_EXERCISE) {
+                upcoming = phase.getExercise();
+            } else if (phase.getExercise() == Phase.EXERCISE_CUSTOM) {
+                phases.set(i, new Phase(phase.getType(), upcoming, phase.getSide(), phase.getDurationMs(),
+                        phase.getRecordedMs(), phase.getCues(), phase.getTitle()));
+            }
+        }
+        if (phases.get(0).getType() != Phase.TYPE_START) {
+            phases.add(0, new Phase(Phase.TYPE_START, phases.get(0).getExercise(), Phase.SIDE_NONE,
+                    WorkoutPlan.START_DURATION, 0, Phase.defaultCues(Phase.TYPE_START), null));
+        }
+
+        return insert(name, repetitions, phases);
+    }
+
+    private static Phase parsePhase(JSONObject json) throws JSONException {
+        int type = indexOf(TYPES, json.optString("type", "exercise"));
+        int exercise = json.optInt("exercise", Phase.EXERCISE_CUSTOM);
+        if (exercise < 0 || exercise > DbAdapter_Statistics.EXERCISES) {
+            throw new JSONException("unknown exercise " + exercise);
+        }
+        String title = json.has("title") ? json.getString("title") : null;
+        if (type == Phase.TYPE_EXERCISE && exercise == Phase.EXERCISE_CUSTOM && title == null) {
+            throw new JSONException("exercise without number or title");
+        }
+
+        long durationMs = json.getLong("duration") * 1000;
+        if (durationMs <= 0) {
+            throw new JSONException("duration must be positive");
+        }
+        boolean recorded = json.optBoolean("recorded", type == Phase.TYPE_EXERCISE);
+
+        int side = indexOf(SIDES, json.optString("side", "none"));
+
+        int cues = Phase.defaultCues(type);
+        JSONArray cueArray = json.optJSONArray("cues");
+        if (cueArray != null) {
+            cues = 0;
+            for (int i = 0; i < cueArray.length(); i++) {
+                cues |= 1 << indexOf(CUES, cueArray.getString(i));
+            }
+        }
+
+        return new Phase(type, exercise, side, durationMs, recorded ? durationMs : 0, cues, title);
+    }
+
+    private static int indexOf(String[] names, String name) throws JSONException {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new JSONException("unknown value " + name);
+    }
+}
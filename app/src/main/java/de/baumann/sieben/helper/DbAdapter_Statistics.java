@@ -19,86 +19,93 @@
 
 package de.baumann.sieben.helper;
 
-import android.annotation.SuppressLint;
+import android.content.ContentValues;
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.database.Cursor;
-import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
-import android.preference.PreferenceManager;
-
-import de.baumann.sieben.R;
-
 
+/**
+ * Overall count and time per exercise. The table lives in the events
+ * database and is updated by {@link DbAdapter_Events#insert} together with
+ * the log whenever an exercise is completed, so showing it is a single query.
+ * Exercises of programs that are not one of the built-in 12 get a row of
+ * their own, keyed by title, the first time they are recorded.
+ */
 class DbAdapter_Statistics {
 
-    //define static variable
-    private static final int dbVersion =6;
-    private static final String dbName = "ex_v01.db";
-    private static final String dbTable = "ex_table";
+    private static final String dbTable = DbAdapter_Events.totalTable;
 
-    private static class DatabaseHelper extends SQLiteOpenHelper {
-        DatabaseHelper(Context context) {
-            super(context,dbName,null, dbVersion);
-        }
+    static final int EXERCISES = 12;
 
-        @Override
-        public void onCreate(SQLiteDatabase db) {
-            db.execSQL("CREATE TABLE IF NOT EXISTS "+dbTable+" (_id INTEGER PRIMARY KEY autoincrement, ex_title, ex_hms, ex_icon, ex_number, ex_average, ex_number_int, ex_averageInt, UNIQUE(ex_title))");
-        }
+    // ids of custom exercises, with room for more built-in ones below
+    static final int FIRST_CUSTOM = 100;
 
-        @Override
-        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-            db.execSQL("DROP TABLE IF EXISTS "+dbTable);
-            onCreate(db);
-        }
-    }
+    // orders of the statistics screen, see Activity_statistics#getComparator
+    static final String SORT_TITLE = "title";
+    static final String SORT_NUMBER = "number";
+    static final String SORT_HMS = "hms";
+    static final String SORT_AVERAGE = "average";
 
-    //establish connection with SQLiteDataBase
-    private final Context c;
-    private SQLiteDatabase sqlDb;
+    private static DbAdapter_Statistics instance;
 
-    DbAdapter_Statistics(Context context) {
-        this.c = context;
-    }
-    void open() throws SQLException {
-        DatabaseHelper dbHelper = new DatabaseHelper(c);
-        sqlDb = dbHelper.getWritableDatabase();
-    }
+    private final SQLiteDatabase sqlDb;
 
-    //insert data
-    @SuppressWarnings("SameParameterValue")
-    void insert(String ex_title, String ex_hms, String ex_icon, String ex_number, String ex_average, String ex_number_int, String ex_averageInt) {
-        if(!isExist(ex_title)) {
-            sqlDb.execSQL("INSERT INTO ex_table (ex_title, ex_hms, ex_icon, ex_number, ex_average, ex_number_int, ex_averageInt) VALUES('" + ex_title + "','" + ex_hms + "','" + ex_icon + "','" + ex_number + "','" + ex_average + "','" + ex_number_int + "','" + ex_averageInt + "')");
+    static synchronized DbAdapter_Statistics get(Context context) {
+        if (instance == null) {
+            instance = new DbAdapter_Statistics(context.getApplicationContext());
         }
-    }
-    //check entry already in database or not
-    private boolean isExist(String ex_title){
-        String query = "SELECT ex_title FROM ex_table WHERE ex_title='"+ex_title+"' LIMIT 1";
-        @SuppressLint("Recycle") Cursor row = sqlDb.rawQuery(query, null);
-        return row.moveToFirst();
+        return instance;
     }
 
-    //fetch data
-    Cursor fetchAllData(Context context) {
+    private DbAdapter_Statistics(Context context) {
+        sqlDb = DbAdapter_Events.get(context).getDatabase();
+    }
 
-        PreferenceManager.setDefaultValues(context, R.xml.user_settings, false);
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(context);
+    /**
+     * Set all totals to zero.
+     */
+    void reset() {
+        ContentValues values = new ContentValues();
+        values.put("ex_number", 0);
+        values.put("ex_time", 0);
+        values.put("ex_average", 0);
+        sqlDb.update(dbTable, values, null, null);
+    }
 
-        String[] columns = new String[]{"_id", "ex_title", "ex_hms", "ex_icon","ex_number","ex_average","ex_number_int","ex_averageInt"};
+    /**
+     * @return id of the custom exercise with the title, its row is added
+     *   the first time
+     */
+    int getCustomExercise(String title) {
+        Cursor cursor = sqlDb.rawQuery("SELECT _id FROM " + dbTable + " WHERE ex_title = ?", new String[] {title});
+        try {
+            if (cursor.moveToFirst()) {
+                return cursor.getInt(0);
+            }
+        } finally {
+            cursor.close();
+        }
 
-        if (sp.getString("sortDBF", "title").equals("title")) {
-            return sqlDb.query(dbTable, columns, null, null, null, null, "ex_icon");
-        } else if (sp.getString("sortDBF", "title").equals("number")) {
-            return sqlDb.query(dbTable, columns, null, null, null, null, "ex_number_int" + " DESC");
-        } else if (sp.getString("sortDBF", "title").equals("hms")) {
-            return sqlDb.query(dbTable, columns, null, null, null, null, "ex_hms" + " DESC");
-        } else if (sp.getString("sortDBF", "title").equals("average")) {
-            return sqlDb.query(dbTable, columns, null, null, null, null, "ex_averageInt" + " DESC");
+        int exercise;
+        cursor = sqlDb.rawQuery("SELECT MAX(_id) FROM " + dbTable, null);
+        try {
+            exercise = Math.max(cursor.moveToFirst() ? cursor.getInt(0) + 1 : 0, FIRST_CUSTOM);
+        } finally {
+            cursor.close();
         }
+        ContentValues values = new ContentValues();
+        values.put("_id", exercise);
+        values.put("ex_title", title);
+        sqlDb.insert(dbTable, null, values);
+        return exercise;
+    }
 
-        return null;
+    /**
+     * @return all totals by exercise id, the screen sorts them by the chosen
+     *   {@code SORT_} order in memory
+     */
+    Cursor fetchAllData() {
+        String[] columns = new String[]{"_id", "ex_number", "ex_time", "ex_average", "ex_title"};
+        return sqlDb.query(dbTable, columns, null, null, null, null, "_id");
     }
-}
\ No newline at end of file
+}
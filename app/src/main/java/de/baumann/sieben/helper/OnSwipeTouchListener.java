@@ -1,64 +1,143 @@
 package de.baumann.sieben.helper;
 
-import android.content.Context;
-import android.view.GestureDetector;
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.View.OnTouchListener;
+import android.view.ViewConfiguration;
 
-
+/**
+ * Swipes on a view, committed while the touch-up event is handled: the
+ * gesture is classified from the down position, the up position and the
+ * velocity, and the callback runs right away, so its effect is drawn with
+ * the next frame.
+ *
+ * Every swipe logs its latency from the touch-up to the end of the
+ * callback and to the start of the next frame; a swipe that misses the
+ * frame budget is logged as a warning. A touch that does not move is
+ * passed on to the view as a click.
+ */
 public class OnSwipeTouchListener implements OnTouchListener {
 
-    private final GestureDetector gestureDetector;
+    private static final int SWIPE_THRESHOLD = 100;
+    private static final int SWIPE_VELOCITY_THRESHOLD = 100;
 
-    public OnSwipeTouchListener (Context ctx){
-        gestureDetector = new GestureDetector(ctx, new GestureListener());
-    }
+    // trace section of each direction, also named in the latency log
+    private static final String SWIPE_RIGHT = "Swipe right";
+    private static final String SWIPE_LEFT = "Swipe left";
+    private static final String SWIPE_BOTTOM = "Swipe bottom";
+    private static final String SWIPE_TOP = "Swipe top";
+
+    private VelocityTracker velocityTracker;
+    private float downX;
+    private float downY;
+
+    // swipes whose frame came later than the budget
+    private int slowSwipes = 0;
+    private int swipes = 0;
 
     @Override
     public boolean onTouch(View v, MotionEvent event) {
-        return gestureDetector.onTouchEvent(event);
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            downX = event.getRawX();
+            downY = event.getRawY();
+            recycle();
+            velocityTracker = VelocityTracker.obtain();
+            velocityTracker.addMovement(event);
+        } else if (velocityTracker == null) {
+            return false;
+        } else if (action == MotionEvent.ACTION_MOVE) {
+            velocityTracker.addMovement(event);
+        } else if (action == MotionEvent.ACTION_UP) {
+            velocityTracker.addMovement(event);
+            velocityTracker.computeCurrentVelocity(1000);
+            float velocityX = velocityTracker.getXVelocity();
+            float velocityY = velocityTracker.getYVelocity();
+            recycle();
+            onUp(v, event, event.getRawX() - downX, event.getRawY() - downY, velocityX, velocityY);
+        } else if (action == MotionEvent.ACTION_CANCEL) {
+            recycle();
+        }
+        return true;
     }
 
-    private final class GestureListener extends GestureDetector.SimpleOnGestureListener {
+    private void onUp(View v, MotionEvent event, float diffX, float diffY, float velocityX, float velocityY) {
+        int touchSlop = ViewConfiguration.get(v.getContext()).getScaledTouchSlop();
+        if (Math.abs(diffX) <= touchSlop && Math.abs(diffY) <= touchSlop) {
+            v.performClick();
+            return;
+        }
 
-        private static final int SWIPE_THRESHOLD = 100;
-        private static final int SWIPE_VELOCITY_THRESHOLD = 100;
+        String name;
+        if (Math.abs(diffX) > Math.abs(diffY)) {
+            if (Math.abs(diffX) <= SWIPE_THRESHOLD || Math.abs(velocityX) <= SWIPE_VELOCITY_THRESHOLD) {
+                return;
+            }
+            name = diffX > 0 ? SWIPE_RIGHT : SWIPE_LEFT;
+        } else {
+            if (Math.abs(diffY) <= SWIPE_THRESHOLD || Math.abs(velocityY) <= SWIPE_VELOCITY_THRESHOLD) {
+                return;
+            }
+            name = diffY > 0 ? SWIPE_BOTTOM : SWIPE_TOP;
+        }
 
-        @Override
-        public boolean onDown(MotionEvent e) {
-            return true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(name);
+        }
+        if (SWIPE_RIGHT.equals(name)) {
+            onSwipeRight();
+        } else if (SWIPE_LEFT.equals(name)) {
+            onSwipeLeft();
+        } else if (SWIPE_BOTTOM.equals(name)) {
+            onSwipeBottom();
+        } else {
+            onSwipeTop();
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
         }
 
-        @Override
-        public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
-            boolean result = false;
-            try {
-                float diffY = e2.getY() - e1.getY();
-                float diffX = e2.getX() - e1.getX();
-                if (Math.abs(diffX) > Math.abs(diffY)) {
-                    if (Math.abs(diffX) > SWIPE_THRESHOLD && Math.abs(velocityX) > SWIPE_VELOCITY_THRESHOLD) {
-                        if (diffX > 0) {
-                            onSwipeRight();
-                        } else {
-                            onSwipeLeft();
-                        }
-                    }
-                    result = true;
-                }
-                else if (Math.abs(diffY) > SWIPE_THRESHOLD && Math.abs(velocityY) > SWIPE_VELOCITY_THRESHOLD) {
-                    if (diffY > 0) {
-                        onSwipeBottom();
-                    } else {
-                        onSwipeTop();
-                    }
-                }
-                result = true;
+        reportLatency(v, name, event.getEventTime());
+    }
 
-            } catch (Exception exception) {
-                exception.printStackTrace();
+    /**
+     * Log the time from the touch-up to the callback's return and to the
+     * frame that shows its effect.
+     */
+    private void reportLatency(View v, final String name, final long upTime) {
+        final long effect = SystemClock.uptimeMillis() - upTime;
+        Display display = v.getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 60;
+        final long budget = (long) Math.ceil(1000 / (refreshRate > 0 ? refreshRate : 60));
+
+        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                long frame = SystemClock.uptimeMillis() - upTime;
+                swipes++;
+                String message = name + ": " + effect + " ms to effect, " + frame
+                        + " ms to frame (" + budget + " ms budget)";
+                if (frame > budget) {
+                    slowSwipes++;
+                    Log.w("Seven", message + ", " + slowSwipes + " of " + swipes + " swipes missed it");
+                } else {
+                    Log.d("Seven", message);
+                }
             }
-            return result;
+        });
+    }
+
+    private void recycle() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
         }
     }
 
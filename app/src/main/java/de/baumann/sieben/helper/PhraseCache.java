@@ -0,0 +1,340 @@
+package de.baumann.sieben.helper;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.speech.tts.Voice;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import at.juggle.sieben.SoundPool;
+
+/**
+ * The announcements of a workout are a small fixed set of texts. They are
+ * synthesized once with {@link TextToSpeech#synthesizeToFile} into the app
+ * storage, named after a hash of locale, voice and text, and then played as
+ * samples of the {@link SoundPool}. A cached phrase starts without waiting for
+ * the engine and still works while the engine is busy or not bound yet.
+ * Being a plain WAV file, the length of a cached phrase is known before it
+ * is played, see {@link #duration(String)}. Files of texts no longer
+ * announced, e.g. the titles of another program, or of another voice are
+ * deleted whenever a set of texts is prepared.
+ */
+class PhraseCache {
+
+    private static final String DIR = "phrases";
+    private static final String PREFS = "phrases";
+
+    private final Context context;
+    private final File dir;
+    // text -> sound id in the pool
+    private final Map<String, Integer> samples = new HashMap<>();
+    // text -> file of a loaded sample
+    private final Map<String, File> files = new HashMap<>();
+    // text -> length in millis, measured on demand
+    private final Map<String, Long> durations = new HashMap<>();
+    // utterance id -> text of pending synthesis
+    private final Map<String, String> pending = new HashMap<>();
+
+    private SoundPool pool;
+    private int streamId = 0;
+
+    PhraseCache(Context context) {
+        this.context = context.getApplicationContext();
+        this.dir = new File(this.context.getFilesDir(), DIR);
+    }
+
+    /**
+     * Load the phrases synthesized with the voice used last time, so they can
+     * be played before the engine is bound.
+     */
+    void preload(String... texts) {
+        String voice = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getString("voice", null);
+        if (voice == null) {
+            return;
+        }
+        for (String text : texts) {
+            File file = new File(dir, fileName(text, voice));
+            if (file.exists()) {
+                load(text, file);
+            }
+        }
+    }
+
+    /**
+     * Load all phrases that are on disk already and synthesize the missing
+     * ones in the background. Must be called once the engine is initialized.
+     */
+    void prepare(TextToSpeech tts, String... texts) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.e("error", "Cannot create " + dir);
+            return;
+        }
+        tts.setOnUtteranceProgressListener(progressListener);
+
+        String voice = voiceName(tts);
+        SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        if (!voice.equals(prefs.getString("voice", null))) {
+            prefs.edit().putString("voice", voice).apply();
+            synchronized (samples) {
+                // phrases of another voice
+                samples.clear();
+                files.clear();
+                durations.clear();
+            }
+        }
+        Set<String> names = new HashSet<>();
+        for (String text : texts) {
+            File file = new File(dir, fileName(text, voice));
+            names.add(file.getName());
+            if (file.exists()) {
+                load(text, file);
+            } else {
+                synthesize(tts, text, file);
+            }
+        }
+        prune(names);
+    }
+
+    /**
+     * Delete the files of all other texts, except those still being synthesized.
+     * @param keep file names of the current texts
+     */
+    private void prune(Set<String> keep) {
+        File[] cached = dir.listFiles();
+        if (cached == null) {
+            return;
+        }
+        for (File file : cached) {
+            String name = file.getName();
+            String utteranceId = name.endsWith(".tmp") ? name.substring(0, name.length() - 4) : name;
+            if (keep.contains(utteranceId)) {
+                continue;
+            }
+            synchronized (pending) {
+                if (pending.containsKey(utteranceId)) {
+                    continue;
+                }
+            }
+            if (!file.delete()) {
+                Log.w("Seven", "Cannot delete " + file);
+            }
+        }
+    }
+
+    /**
+     * Play the cached audio of a text, interrupting the previous phrase.
+     * @return false if the text is not cached (yet)
+     */
+    boolean play(String text) {
+        SoundPool current = SoundPool.get(context);
+        Integer soundId;
+        synchronized (samples) {
+            if (pool != current) {
+                // the pool was released in the meantime, samples are gone
+                return false;
+            }
+            soundId = samples.get(text);
+        }
+        if (soundId == null) {
+            return false;
+        }
+        stop();
+        streamId = current.playSample(soundId);
+        return streamId != 0;
+    }
+
+    /**
+     * Read from the header of the cached file, not from the engine. Reads
+     * the disk on first use, call it off the main thread.
+     * @return millis it takes to play the text, 0 if it is not cached (yet)
+     */
+    long duration(String text) {
+        File file;
+        synchronized (samples) {
+            if (pool != SoundPool.get(context) || !samples.containsKey(text)) {
+                return 0;
+            }
+            Long duration = durations.get(text);
+            if (duration != null) {
+                return duration;
+            }
+            file = files.get(text);
+        }
+        long duration = wavDuration(file);
+        synchronized (samples) {
+            durations.put(text, duration);
+        }
+        return duration;
+    }
+
+    void stop() {
+        if (streamId != 0) {
+            synchronized (samples) {
+                if (pool != null) {
+                    pool.stop(streamId);
+                }
+            }
+            streamId = 0;
+        }
+    }
+
+    private void load(String text, File file) {
+        SoundPool current = SoundPool.get(context);
+        synchronized (samples) {
+            if (pool != current) {
+                samples.clear();
+                files.clear();
+                durations.clear();
+                pool = current;
+            }
+            if (!samples.containsKey(text)) {
+                int soundId = current.loadSample(file.getPath());
+                if (soundId > 0) {
+                    samples.put(text, soundId);
+                    files.put(text, file);
+                }
+            }
+        }
+    }
+
+    private void synthesize(TextToSpeech tts, String text, File file) {
+        File tmp = new File(dir, file.getName() + ".tmp");
+        String utteranceId = file.getName();
+        synchronized (pending) {
+            pending.put(utteranceId, text);
+        }
+
+        int result;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            result = tts.synthesizeToFile(text, null, tmp, utteranceId);
+        } else {
+            HashMap<String, String> params = new HashMap<>();
+            params.put(TextToSpeech.Engine.KEY_PARAM_UTTERANCE_ID, utteranceId);
+            //noinspection deprecation
+            result = tts.synthesizeToFile(text, params, tmp.getPath());
+        }
+        if (result != TextToSpeech.SUCCESS) {
+            synchronized (pending) {
+                pending.remove(utteranceId);
+            }
+        }
+    }
+
+    // called on a binder thread of the engine
+    private final UtteranceProgressListener progressListener = new UtteranceProgressListener() {
+        @Override
+        public void onStart(String utteranceId) {
+        }
+
+        @Override
+        public void onDone(String utteranceId) {
+            String text;
+            synchronized (pending) {
+                text = pending.remove(utteranceId);
+            }
+            if (text == null) {
+                return;
+            }
+            File tmp = new File(dir, utteranceId + ".tmp");
+            File file = new File(dir, utteranceId);
+            if (tmp.renameTo(file)) {
+                load(text, file);
+            }
+        }
+
+        @Override
+        public void onError(String utteranceId) {
+            synchronized (pending) {
+                pending.remove(utteranceId);
+            }
+            //noinspection ResultOfMethodCallIgnored
+            new File(dir, utteranceId + ".tmp").delete();
+        }
+    };
+
+    /**
+     * @return millis of audio in a RIFF/WAVE file, 0 if it cannot be read
+     */
+    private static long wavDuration(File file) {
+        RandomAccessFile in = null;
+        try {
+            in = new RandomAccessFile(file, "r");
+            if (in.readInt() != 0x52494646) {           // "RIFF"
+                return 0;
+            }
+            in.skipBytes(4);
+            if (in.readInt() != 0x57415645) {           // "WAVE"
+                return 0;
+            }
+            long byteRate = 0;
+            while (in.getFilePointer() + 8 <= in.length()) {
+                int id = in.readInt();
+                long size = Integer.reverseBytes(in.readInt()) & 0xffffffffL;
+                long body = in.getFilePointer();
+                if (id == 0x666d7420) {                 // "fmt "
+                    in.skipBytes(8);
+                    byteRate = Integer.reverseBytes(in.readInt()) & 0xffffffffL;
+                } else if (id == 0x64617461) {          // "data"
+                    // engines streaming to the file may leave the size open
+                    long available = in.length() - body;
+                    if (size == 0 || size > available) {
+                        size = available;
+                    }
+                    return byteRate > 0 ? size * 1000 / byteRate : 0;
+                }
+                // chunks are padded to an even size
+                in.seek(body + size + (size & 1));
+            }
+            return 0;
+        } catch (IOException e) {
+            Log.w("Seven", "Cannot read " + file, e);
+            return 0;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static String voiceName(TextToSpeech tts) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            Voice voice = tts.getVoice();
+            if (voice != null) {
+                return voice.getName();
+            }
+        }
+        return String.valueOf(tts.getDefaultEngine());
+    }
+
+    private static String fileName(String text, String voice) {
+        String key = Locale.getDefault().toString() + "|" + voice + "|" + text;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes("UTF-8"));
+            StringBuilder name = new StringBuilder();
+            for (byte b : hash) {
+                name.append(String.format(Locale.US, "%02x", b));
+            }
+            return name.append(".wav").toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            return Integer.toHexString(key.hashCode()) + ".wav";
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.baumann.sieben.helper;
+
+/**
+ * Sums days up into the rollup buckets of every {@link StatsBuckets} kind.
+ * Days added in ascending order keep one open bucket per kind, which is
+ * handed to the {@link Sink} as soon as a day falls into the next bucket,
+ * so every bucket comes out once. A single day followed by {@link #flush()}
+ * gives the one bucket per kind it adds to.
+ * Free of Android dependencies.
+ */
+public final class Rollups {
+
+    public interface Sink {
+        /**
+         * @param kind one of the {@link StatsBuckets} kinds
+         */
+        void put(int kind, int bucket, int count, long durationMs, double kcal);
+    }
+
+    private final Sink sink;
+
+    private final int[] buckets = new int[StatsBuckets.KINDS];
+    private final int[] counts = new int[StatsBuckets.KINDS];
+    private final long[] durations = new long[StatsBuckets.KINDS];
+    private final double[] energies = new double[StatsBuckets.KINDS];
+
+    public Rollups(Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Add the exercises of a day, days in ascending order since the last flush.
+     * @param day yyyyMMdd
+     */
+    public void add(int day, int count, long durationMs, double kcal) {
+        for (int kind = 0; kind < StatsBuckets.KINDS; kind++) {
+            int bucket = StatsBuckets.bucket(kind, day);
+            if (bucket != buckets[kind]) {
+                flush(kind);
+                buckets[kind] = bucket;
+            }
+            counts[kind] += count;
+            durations[kind] += durationMs;
+            energies[kind] += kcal;
+        }
+    }
+
+    /**
+     * Hand out the open buckets.
+     */
+    public void flush() {
+        for (int kind = 0; kind < StatsBuckets.KINDS; kind++) {
+            flush(kind);
+            buckets[kind] = 0;
+        }
+    }
+
+    private void flush(int kind) {
+        if (counts[kind] > 0) {
+            sink.put(kind, buckets[kind], counts[kind], durations[kind], energies[kind]);
+        }
+        counts[kind] = 0;
+        durations[kind] = 0;
+        energies[kind] = 0;
+    }
+}
@@ -0,0 +1,126 @@
+package de.baumann.sieben.helper;
+
+/**
+ * Bucket keys of the statistics rollups, computed with integer arithmetic
+ * only (no Calendar or date formatting, no Android dependencies).
+ *
+ * day:   yyyyMMdd
+ * week:  ISO week-based year * 100 + ISO week (weeks start on Monday)
+ * month: yyyyMM
+ * year:  yyyy
+ */
+public final class StatsBuckets {
+
+    public static final int DAY = 0;
+    public static final int WEEK = 1;
+    public static final int MONTH = 2;
+    public static final int YEAR = 3;
+
+    public static final int KINDS = 4;
+
+    private StatsBuckets() {
+    }
+
+    public static int day(int year, int month, int dayOfMonth) {
+        return year * 10000 + month * 100 + dayOfMonth;
+    }
+
+    /**
+     * @param kind one of DAY, WEEK, MONTH, YEAR
+     * @param day yyyyMMdd
+     */
+    public static int bucket(int kind, int day) {
+        switch (kind) {
+            case WEEK:
+                return isoWeek(day);
+            case MONTH:
+                return day / 100;
+            case YEAR:
+                return day / 10000;
+            default:
+                return day;
+        }
+    }
+
+    /**
+     * @return the bucket n buckets after (or before, if n is negative) the given one
+     */
+    public static int add(int kind, int bucket, int n) {
+        switch (kind) {
+            case WEEK:
+                return isoWeek(addDays(firstDayOfIsoWeek(bucket), 7 * n));
+            case MONTH:
+                int months = (bucket / 100) * 12 + bucket % 100 - 1 + n;
+                return (months / 12) * 100 + months % 12 + 1;
+            case YEAR:
+                return bucket + n;
+            default:
+                return addDays(bucket, n);
+        }
+    }
+
+    public static int isoWeek(int day) {
+        long epochDay = toEpochDay(day);
+        // 1970-01-01 was a Thursday; Monday = 0
+        int dayOfWeek = mod7(epochDay + 3);
+        // the ISO week belongs to the year of its Thursday
+        int thursday = fromEpochDay(epochDay - dayOfWeek + 3);
+        int weekYear = thursday / 10000;
+        long dayOfYear = toEpochDay(thursday) - toEpochDay(day(weekYear, 1, 1));
+        return weekYear * 100 + (int) (dayOfYear / 7) + 1;
+    }
+
+    /**
+     * @return the day after the given one
+     */
+    public static int nextDay(int day) {
+        return fromEpochDay(toEpochDay(day) + 1);
+    }
+
+    public static int addDays(int day, int days) {
+        return fromEpochDay(toEpochDay(day) + days);
+    }
+
+    /**
+     * @return the Monday of the given ISO week (weekYear * 100 + week)
+     */
+    public static int firstDayOfIsoWeek(int week) {
+        int weekYear = week / 100;
+        // January 4th is always in week 1
+        long jan4 = toEpochDay(day(weekYear, 1, 4));
+        long monday = jan4 - mod7(jan4 + 3);
+        return fromEpochDay(monday + 7L * (week % 100 - 1));
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date.
+     */
+    public static long toEpochDay(int day) {
+        long y = day / 10000;
+        int m = (day / 100) % 100;
+        int d = day % 100;
+        y -= m <= 2 ? 1 : 0;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    public static int fromEpochDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int d = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+        return day((int) y, m, d);
+    }
+
+    private static int mod7(long value) {
+        return (int) (((value % 7) + 7) % 7);
+    }
+}
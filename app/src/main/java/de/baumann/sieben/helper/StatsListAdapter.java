@@ -0,0 +1,123 @@
+package de.baumann.sieben.helper;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.baumann.sieben.R;
+
+/**
+ * The statistics screen as one recycled list: the overview cards and charts
+ * as header, followed by one row per exercise. Rows are bound from
+ * precomputed {@link RowModel}s, so binding only sets texts and a cached icon.
+ */
+class StatsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    /**
+     * Everything a row shows, formatted once per data or sort change.
+     */
+    static final class RowModel {
+
+        private final long id;
+        private final int icon;
+        private final String title;
+        private final String hms;
+        private final String number;
+        private final String average;
+
+        RowModel(long id, int icon, String title, String hms, String number, String average) {
+            this.id = id;
+            this.icon = icon;
+            this.title = title;
+            this.hms = hms;
+            this.number = number;
+            this.average = average;
+        }
+    }
+
+    private static final int TYPE_HEADER = 0;
+    private static final int TYPE_ROW = 1;
+
+    private static class HeaderHolder extends RecyclerView.ViewHolder {
+        HeaderHolder(View itemView) {
+            super(itemView);
+        }
+    }
+
+    private static class RowHolder extends RecyclerView.ViewHolder {
+        final ImageView icon;
+        final TextView title;
+        final TextView hms;
+        final TextView number;
+        final TextView average;
+
+        RowHolder(View itemView) {
+            super(itemView);
+            icon = (ImageView) itemView.findViewById(R.id.icon_notes);
+            title = (TextView) itemView.findViewById(R.id.textView_title);
+            hms = (TextView) itemView.findViewById(R.id.textView_hms);
+            number = (TextView) itemView.findViewById(R.id.textView_number);
+            average = (TextView) itemView.findViewById(R.id.textView_average);
+        }
+    }
+
+    private final View header;
+    private final BitmapLoader thumbnails;
+    private List<RowModel> rows = new ArrayList<>();
+
+    StatsListAdapter(View header, BitmapLoader thumbnails) {
+        this.header = header;
+        this.thumbnails = thumbnails;
+        setHasStableIds(true);
+    }
+
+    void setRows(List<RowModel> rows) {
+        this.rows = rows;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size() + 1;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return position == 0 ? TYPE_HEADER : TYPE_ROW;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position == 0 ? -1 : rows.get(position - 1).id;
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        if (viewType == TYPE_HEADER) {
+            return new HeaderHolder(header);
+        }
+        View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item, parent, false);
+        return new RowHolder(v);
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        if (position == 0) {
+            // the header keeps its views, they are updated by the activity
+            return;
+        }
+        RowModel row = rows.get(position - 1);
+        RowHolder rowHolder = (RowHolder) holder;
+        thumbnails.bind(rowHolder.icon, row.icon);
+        rowHolder.title.setText(row.title);
+        rowHolder.hms.setText(row.hms);
+        rowHolder.number.setText(row.number);
+        rowHolder.average.setText(row.average);
+    }
+}
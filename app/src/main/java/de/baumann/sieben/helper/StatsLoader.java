@@ -0,0 +1,224 @@
+package de.baumann.sieben.helper;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Computes the {@link StatsSnapshot} for the statistics screen on a
+ * background thread. The last snapshot is kept until the statistics change
+ * ({@link #invalidate()}) or the day changes, so opening the screen again
+ * shows it without touching the database. Calories are stored with every
+ * exercise, a new body weight only counts from then on.
+ */
+final class StatsLoader {
+
+    interface Callback {
+        /** Called on the main thread. */
+        void onStatsLoaded(StatsSnapshot snapshot);
+    }
+
+    // upper bound for the bars of one zoom level of the history chart
+    static final int HISTORY_BARS = 366;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // bumped on every change of the recorded statistics
+    private static volatile int dataVersion;
+
+    private static StatsSnapshot cached;
+    private static String cachedKey;
+
+    private static Callback pending;
+
+    private StatsLoader() {
+    }
+
+    /**
+     * Mark the cached snapshot as outdated.
+     */
+    static void invalidate() {
+        dataVersion++;
+    }
+
+    /**
+     * Change the recorded statistics on the loader thread, off the caller's
+     * thread and in order with the loads, then mark the snapshot as outdated.
+     */
+    static void update(final Runnable change) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                change.run();
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Deliver the snapshot to the callback, right away if the cached one is
+     * still valid, else when it has been computed. A later call replaces the
+     * callback of an earlier one that is still loading.
+     */
+    static void load(Context context, final Callback callback) {
+        final Context appContext = context.getApplicationContext();
+        final String key = cacheKey();
+
+        synchronized (StatsLoader.class) {
+            pending = callback;
+            if (cached != null && key.equals(cachedKey)) {
+                pending = null;
+                callback.onStatsLoaded(cached);
+                return;
+            }
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final StatsSnapshot snapshot = compute(appContext);
+                synchronized (StatsLoader.class) {
+                    cached = snapshot;
+                    cachedKey = key;
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        Callback target;
+                        synchronized (StatsLoader.class) {
+                            target = pending == callback ? callback : null;
+                            if (target != null) {
+                                pending = null;
+                            }
+                        }
+                        if (target != null) {
+                            target.onStatsLoaded(snapshot);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Drop the callback, e.g. when the activity is destroyed while loading.
+     */
+    static synchronized void cancel(Callback callback) {
+        if (pending == callback) {
+            pending = null;
+        }
+    }
+
+    private static String cacheKey() {
+        return dataVersion + "|" + DailyStatsHelper.getDay(Calendar.getInstance());
+    }
+
+    private static StatsSnapshot compute(Context context) {
+        int[] dailyCounts = DailyStatsHelper.getWeeklyDailyCounts(context);
+        long weekTime = DailyStatsHelper.getWeeklyTotalTime(context);
+        int weekCalories = DailyStatsHelper.getWeeklyCalories(context);
+
+        Map<Integer, Integer> ytdStats = DailyStatsHelper.getYTDWeeklyStats(context);
+        int[] ytdWeeks = new int[ytdStats.size()];
+        // the total is the sum of the weeks, see DailyStatsHelper.getYTDTotal
+        int ytdTotal = 0;
+        for (Map.Entry<Integer, Integer> entry : ytdStats.entrySet()) {
+            ytdWeeks[entry.getKey() - 1] = entry.getValue();
+            ytdTotal += entry.getValue();
+        }
+
+        List<StatsSnapshot.ExerciseRow> rows = new ArrayList<>(DbAdapter_Statistics.EXERCISES);
+        Cursor cursor = DbAdapter_Statistics.get(context).fetchAllData();
+        try {
+            while (cursor.moveToNext()) {
+                rows.add(new StatsSnapshot.ExerciseRow(cursor.getInt(0), cursor.getInt(1),
+                        cursor.getLong(2), cursor.getLong(3), cursor.getString(4)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        int today = DailyStatsHelper.getDay(Calendar.getInstance());
+        StatsSnapshot.History[] history = new StatsSnapshot.History[StatsBuckets.KINDS];
+        for (int kind = 0; kind < StatsBuckets.KINDS; kind++) {
+            history[kind] = computeHistory(context, kind, today);
+        }
+
+        return new StatsSnapshot(dailyCounts, weekTime, weekCalories, ytdWeeks, ytdTotal, rows, history);
+    }
+
+    /**
+     * Buckets from the first recorded one up to today, at most
+     * {@link #HISTORY_BARS} of them, read from the rollups.
+     */
+    private static StatsSnapshot.History computeHistory(Context context, int kind, int today) {
+        DbAdapter_Events events = DbAdapter_Events.get(context);
+        int last = StatsBuckets.bucket(kind, today);
+        int recorded = events.fetchFirstBucket(kind);
+        int first = Math.max(recorded, StatsBuckets.add(kind, last, 1 - HISTORY_BARS));
+        if (recorded == 0 || first > last) {
+            first = last;
+        }
+
+        int size = 1;
+        for (int bucket = first; bucket != last; bucket = StatsBuckets.add(kind, bucket, 1)) {
+            size++;
+        }
+        int[] buckets = new int[size];
+        buckets[0] = first;
+        for (int i = 1; i < size; i++) {
+            buckets[i] = StatsBuckets.add(kind, buckets[i - 1], 1);
+        }
+
+        int[] counts = new int[size];
+        Cursor cursor = events.fetchRollups(kind, first, last);
+        try {
+            while (cursor.moveToNext()) {
+                int index = Arrays.binarySearch(buckets, cursor.getInt(0));
+                if (index >= 0) {
+                    counts[index] = cursor.getInt(1);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+
+        String[] labels = new String[size];
+        SimpleDateFormat format = new SimpleDateFormat(kind == StatsBuckets.DAY ? "d MMM" : "MMM yy",
+                Locale.getDefault());
+        Calendar calendar = Calendar.getInstance();
+        for (int i = 0; i < size; i++) {
+            int bucket = buckets[i];
+            switch (kind) {
+                case StatsBuckets.DAY:
+                    calendar.set(bucket / 10000, (bucket / 100) % 100 - 1, bucket % 100);
+                    labels[i] = format.format(calendar.getTime());
+                    break;
+                case StatsBuckets.WEEK:
+                    labels[i] = String.format(Locale.getDefault(), "%d/%02d", bucket % 100, (bucket / 100) % 100);
+                    break;
+                case StatsBuckets.MONTH:
+                    calendar.set(bucket / 100, bucket % 100 - 1, 1);
+                    labels[i] = format.format(calendar.getTime());
+                    break;
+                default:
+                    labels[i] = String.valueOf(bucket);
+                    break;
+            }
+        }
+
+        return new StatsSnapshot.History(labels, counts);
+    }
+}
@@ -0,0 +1,156 @@
+package de.baumann.sieben.helper;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything the statistics screen shows, computed in one go by
+ * {@link StatsLoader}. Immutable, so it can be handed from the loader thread
+ * to the UI thread and reused until the data changes.
+ */
+final class StatsSnapshot {
+
+    /**
+     * Overall values of one exercise.
+     */
+    static final class ExerciseRow {
+
+        private final int exercise;
+        private final int number;
+        private final long timeMs;
+        private final long averageMs;
+        private final String title;
+
+        /**
+         * @param title name of a custom exercise, null for the built-in ones
+         */
+        ExerciseRow(int exercise, int number, long timeMs, long averageMs, String title) {
+            this.exercise = exercise;
+            this.number = number;
+            this.timeMs = timeMs;
+            this.averageMs = averageMs;
+            this.title = title;
+        }
+
+        int getExercise() {
+            return exercise;
+        }
+
+        String getTitle() {
+            return title;
+        }
+
+        int getNumber() {
+            return number;
+        }
+
+        long getTimeMs() {
+            return timeMs;
+        }
+
+        long getAverageMs() {
+            return averageMs;
+        }
+    }
+
+    /**
+     * Exercises per bucket of one zoom level of the history chart, oldest first.
+     */
+    static final class History {
+
+        private final String[] labels;
+        private final int[] counts;
+
+        History(String[] labels, int[] counts) {
+            this.labels = labels;
+            this.counts = counts;
+        }
+
+        int size() {
+            return counts.length;
+        }
+
+        String getLabel(int index) {
+            return labels[index];
+        }
+
+        int getCount(int index) {
+            return counts[index];
+        }
+    }
+
+    private final int[] weekDailyCounts;
+    private final long weekTimeMs;
+    private final int weekCalories;
+    private final int[] ytdWeekCounts;
+    private final int ytdTotal;
+    private final List<ExerciseRow> rows;
+    private final History[] history;
+
+    /**
+     * @param weekDailyCounts exercises per day of the current week, Sunday first
+     * @param ytdWeekCounts exercises per ISO week of this year, week 1 first
+     * @param rows per exercise values, ordered by exercise
+     * @param history one entry per {@link StatsBuckets} kind
+     */
+    StatsSnapshot(int[] weekDailyCounts, long weekTimeMs, int weekCalories,
+                  int[] ytdWeekCounts, int ytdTotal, List<ExerciseRow> rows, History[] history) {
+        this.weekDailyCounts = weekDailyCounts;
+        this.weekTimeMs = weekTimeMs;
+        this.weekCalories = weekCalories;
+        this.ytdWeekCounts = ytdWeekCounts;
+        this.ytdTotal = ytdTotal;
+        this.rows = Collections.unmodifiableList(rows);
+        this.history = history;
+    }
+
+    int getWeekDailyCount(int day) {
+        return weekDailyCounts[day];
+    }
+
+    int getWeekTotal() {
+        int total = 0;
+        for (int count : weekDailyCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    float getWeekAverage() {
+        return getWeekTotal() / 7.0f;
+    }
+
+    long getWeekTimeMs() {
+        return weekTimeMs;
+    }
+
+    int getWeekCalories() {
+        return weekCalories;
+    }
+
+    int getYtdWeeks() {
+        return ytdWeekCounts.length;
+    }
+
+    /**
+     * @param week ISO week number, starting at 1
+     */
+    int getYtdWeekCount(int week) {
+        return ytdWeekCounts[week - 1];
+    }
+
+    int getYtdTotal() {
+        return ytdTotal;
+    }
+
+    List<ExerciseRow> getRows() {
+        return rows;
+    }
+
+    /**
+     * @param kind one of the {@link StatsBuckets} kinds
+     */
+    History getHistory(int kind) {
+        return history[kind];
+    }
+}
@@ -8,12 +8,56 @@ import android.util.Log;
 
 import java.util.Locale;
 
+/**
+ * Process-wide speech output. The engine is bound once (by the
+ * {@link de.baumann.sieben.WorkoutService}) and shared by every screen.
+ * Text passed before the engine is ready is kept and spoken as soon as
+ * {@code onInit} arrives instead of being dropped. Fixed announcements can
+ * be cached as audio with {@link #preparePhrases(String...)}; text may be
+ * queued from any thread.
+ */
 public class TTSManager {
 
+    private static TTSManager instance;
+
     private TextToSpeech mTts = null;
     private boolean isLoaded = false;
+    private boolean released = false;
+    private String pendingText = null;
+    private PhraseCache phrases;
+    private String[] phraseTexts = null;
+
+    /**
+     * @return the shared manager, binding the engine if it is not bound yet
+     */
+    public static synchronized TTSManager get(Context context) {
+        if (instance == null) {
+            instance = new TTSManager();
+            instance.init(context.getApplicationContext());
+        }
+        return instance;
+    }
 
-    public void init(Context context) {
+    /**
+     * Release the engine connection, e.g. when the workout session ends.
+     * The next {@link #get(Context)} binds a new one.
+     */
+    public static synchronized void shutDown() {
+        if (instance != null) {
+            instance.released = true;
+            if (instance.mTts != null) {
+                instance.mTts.shutdown();
+            }
+            instance.phrases.stop();
+            instance = null;
+        }
+    }
+
+    private TTSManager() {
+    }
+
+    private void init(Context context) {
+        phrases = new PhraseCache(context);
         try {
             mTts = new TextToSpeech(context, onInitListener);
         } catch (Exception e) {
@@ -24,43 +68,85 @@ public class TTSManager {
     private final TextToSpeech.OnInitListener onInitListener = new TextToSpeech.OnInitListener() {
         @Override
         public void onInit(int status) {
-            if (status == TextToSpeech.SUCCESS) {
-                mTts.setLanguage(Locale.getDefault());
-                isLoaded = true;
+            // one lock with shutDown(), a released engine is not touched again
+            synchronized (TTSManager.class) {
+                if (released) {
+                    return;
+                }
+                if (status == TextToSpeech.SUCCESS) {
+                    mTts.setLanguage(Locale.getDefault());
+                    isLoaded = true;
+                    if (phraseTexts != null) {
+                        phrases.prepare(mTts, phraseTexts);
+                    }
+                    if (pendingText != null) {
+                        speak(pendingText);
+                        pendingText = null;
+                    }
+                } else {
+                    Log.e("error", "TTS Initialization failed");
+                    pendingText = null;
+                }
             }
         }
     };
 
-// --Commented out by Inspection START (31.03.16 09:38):
-//    public void shutDown() {
-//        mTts.shutdown();
-//    }
-// --Commented out by Inspection STOP (31.03.16 09:38)
-
-// --Commented out by Inspection START (28.03.16 22:50):
-//    public void addQueue(String text) {
-//        if (isLoaded) {
-//            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-//                mTts.speak(text, TextToSpeech.QUEUE_FLUSH, null, null);
-//            } else {
-//                mTts.speak(text, TextToSpeech.QUEUE_FLUSH, null);
-//            }
-//        }
-//        else
-//            Log.e("error", "TTS Not Initialized");
-//    }
-// --Commented out by Inspection STOP (28.03.16 22:50)
+    /**
+     * Keep the audio of these texts on disk, so they can be played without
+     * the engine. Missing phrases are synthesized once the engine is ready.
+     */
+    public void preparePhrases(String... texts) {
+        synchronized (TTSManager.class) {
+            if (released) {
+                return;
+            }
+            phraseTexts = texts;
+            phrases.preload(texts);
+            if (isLoaded) {
+                phrases.prepare(mTts, texts);
+            }
+        }
+    }
+
+    /**
+     * @return millis the cached audio of the text plays, 0 if it is not
+     *   cached and would be spoken by the engine; may read the disk
+     */
+    public long getPhraseDuration(String text) {
+        return phrases.duration(text);
+    }
 
     public void initQueue(String text) {
-        if (isLoaded) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                mTts.speak(text, TextToSpeech.QUEUE_FLUSH, null, null);
+        synchronized (TTSManager.class) {
+            if (released) {
+                return;
+            }
+            if (phrases.play(text)) {
+                if (isLoaded) {
+                    mTts.stop();
+                }
+                pendingText = null;
+                return;
+            }
+            phrases.stop();
+
+            if (isLoaded) {
+                speak(text);
+            } else if (mTts != null) {
+                // each utterance flushes the previous one, so only the latest is kept
+                pendingText = text;
             } else {
-                //noinspection deprecation
-                mTts.speak(text, TextToSpeech.QUEUE_FLUSH, null);
+                Log.e("error", "TTS Not Initialized");
             }
         }
-        else
-            Log.e("error", "TTS Not Initialized");
+    }
+
+    private void speak(String text) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            mTts.speak(text, TextToSpeech.QUEUE_FLUSH, null, null);
+        } else {
+            //noinspection deprecation
+            mTts.speak(text, TextToSpeech.QUEUE_FLUSH, null);
+        }
     }
 }
@@ -1,19 +1,34 @@
 package de.baumann.sieben.helper;
 
+import android.app.Activity;
 import android.app.AlertDialog;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
+import android.preference.ListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceFragment;
 import android.preference.PreferenceManager;
+import android.support.design.widget.Snackbar;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 import android.widget.SeekBar;
 import android.widget.TextView;
 
+import org.json.JSONException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import de.baumann.sieben.R;
 import de.baumann.sieben.about.About_activity;
 
@@ -46,7 +61,13 @@ public class UserSettingsActivity extends AppCompatActivity {
     @SuppressWarnings("deprecation")
     public static class SettingsFragment extends PreferenceFragment {
 
+        private static final int REQUEST_IMPORT = 1;
+
+        // reads and imports of programs, in order and off the main thread
+        private static final ExecutorService programTasks = Executors.newSingleThreadExecutor();
+
         private SharedPreferences sharedPref;
+        private final Handler handler = new Handler();
 
         private void addHelpListener() {
             Preference reset = findPreference("help");
@@ -95,6 +116,146 @@ public class UserSettingsActivity extends AppCompatActivity {
             });
         }
 
+        private void add_programListener() {
+
+            ListPreference program = (ListPreference) findPreference("program");
+            // the built-in workout until the stored programs are read
+            program.setEntries(new CharSequence[] {getString(R.string.action_program_classic)});
+            program.setEntryValues(new CharSequence[] {"0"});
+            updatePrograms(null);
+
+            program.setOnPreferenceChangeListener(new Preference.OnPreferenceChangeListener() {
+                public boolean onPreferenceChange(Preference pref, Object newValue) {
+                    ListPreference list = (ListPreference) pref;
+                    int index = list.findIndexOfValue((String) newValue);
+                    list.setSummary(index >= 0 ? list.getEntries()[index] : "");
+                    return true;
+                }
+            });
+        }
+
+        /**
+         * Offer the built-in workout and every stored program, read in the background.
+         * @param select value to select once the list is read, null to keep the selection
+         */
+        private void updatePrograms(final String select) {
+            final Context context = getActivity().getApplicationContext();
+            final String classic = getString(R.string.action_program_classic);
+            programTasks.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Cursor cursor = DbAdapter_Programs.get(context).fetchPrograms();
+                    final CharSequence[] entries = new CharSequence[cursor.getCount() + 1];
+                    final CharSequence[] values = new CharSequence[cursor.getCount() + 1];
+                    entries[0] = classic;
+                    values[0] = "0";
+                    try {
+                        for (int i = 1; cursor.moveToNext(); i++) {
+                            values[i] = String.valueOf(cursor.getLong(0));
+                            entries[i] = cursor.getString(1);
+                        }
+                    } finally {
+                        cursor.close();
+                    }
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            showPrograms(entries, values, select);
+                        }
+                    });
+                }
+            });
+        }
+
+        private void showPrograms(CharSequence[] entries, CharSequence[] values, String select) {
+            if (!isAdded()) {
+                return;
+            }
+            ListPreference program = (ListPreference) findPreference("program");
+            program.setEntries(entries);
+            program.setEntryValues(values);
+            if (select != null) {
+                program.setValue(select);
+            }
+            if (program.findIndexOfValue(program.getValue()) < 0) {
+                program.setValue("0");
+            }
+            program.setSummary(program.getEntry());
+        }
+
+        private void add_programImportListener() {
+
+            Preference reset = findPreference("program_import");
+
+            reset.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+                public boolean onPreferenceClick(Preference pref) {
+
+                    Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+                    intent.addCategory(Intent.CATEGORY_OPENABLE);
+                    // many file managers do not know application/json
+                    intent.setType("*/*");
+                    startActivityForResult(intent, REQUEST_IMPORT);
+                    return true;
+                }
+            });
+        }
+
+        @Override
+        public void onActivityResult(int requestCode, int resultCode, Intent data) {
+            super.onActivityResult(requestCode, resultCode, data);
+            if (requestCode != REQUEST_IMPORT || resultCode != Activity.RESULT_OK || data == null
+                    || data.getData() == null) {
+                return;
+            }
+
+            final Context context = getActivity().getApplicationContext();
+            final Uri uri = data.getData();
+            programTasks.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long id;
+                    try {
+                        id = DbAdapter_Programs.get(context).importJson(readText(context, uri));
+                    } catch (IOException | JSONException e) {
+                        id = 0;
+                    }
+                    final long imported = id;
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!isAdded()) {
+                                return;
+                            }
+                            if (imported > 0) {
+                                updatePrograms(String.valueOf(imported));
+                            }
+                            Snackbar.make(getView(), imported > 0 ? R.string.action_program_imported
+                                    : R.string.action_program_invalid, Snackbar.LENGTH_LONG).show();
+                        }
+                    });
+                }
+            });
+        }
+
+        private static String readText(Context context, Uri uri) throws IOException {
+            InputStream stream = context.getContentResolver().openInputStream(uri);
+            if (stream == null) {
+                throw new IOException("cannot open " + uri);
+            }
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+                StringBuilder text = new StringBuilder();
+                char[] buffer = new char[4096];
+                int read;
+                while ((read = reader.read(buffer)) > 0) {
+                    text.append(buffer, 0, read);
+                }
+                return text.toString();
+            } finally {
+                stream.close();
+            }
+        }
+
         private void add_durationListener() {
 
             Preference reset = findPreference("duration");
@@ -311,6 +472,8 @@ public class UserSettingsActivity extends AppCompatActivity {
             add_exerciseDurationListener();
             add_statListener();
             add_weightListener();
+            add_programListener();
+            add_programImportListener();
 
             new Handler().postDelayed(new Runnable() {
                 public void run() {
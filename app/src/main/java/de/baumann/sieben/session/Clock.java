@@ -0,0 +1,13 @@
+package de.baumann.sieben.session;
+
+/**
+ * Monotonic time source for the session timeline. On the device this is
+ * {@code SystemClock.elapsedRealtime()}, which keeps counting in deep sleep.
+ */
+public interface Clock {
+
+    /**
+     * @return milliseconds since an arbitrary, fixed origin
+     */
+    long elapsedRealtime();
+}
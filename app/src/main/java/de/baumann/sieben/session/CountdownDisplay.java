@@ -0,0 +1,75 @@
+package de.baumann.sieben.session;
+
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+/**
+ * Renders the countdown of the current phase. Ticks arrive every 100 ms, but
+ * the views are only touched when the shown second or the filled width of the
+ * progress bar changes. Second labels are formatted once per phase, so a tick
+ * creates no garbage.
+ */
+public class CountdownDisplay {
+
+    private final TextView textView;
+    private final ProgressBar progressBar;
+
+    private String[] seconds = new String[0];
+    private long durationMs = 1;
+    private int progressMax = 100;
+    private long shownSecond = -1;
+    private int shownProgress = -1;
+
+    public CountdownDisplay(TextView textView, ProgressBar progressBar) {
+        this.textView = textView;
+        this.progressBar = progressBar;
+    }
+
+    /**
+     * Prepare for a new phase: pre-format its second labels and scale the
+     * progress bar to one step per pixel.
+     */
+    public void setPhase(Phase phase) {
+        durationMs = Math.max(1, phase.getDurationMs());
+
+        int needed = (int) (durationMs / 1000) + 1;
+        if (needed > seconds.length) {
+            String[] grown = new String[needed];
+            System.arraycopy(seconds, 0, grown, 0, seconds.length);
+            for (int i = seconds.length; i < needed; i++) {
+                grown[i] = String.valueOf(i);
+            }
+            seconds = grown;
+        }
+
+        int width = progressBar.getWidth();
+        progressMax = width > 0 ? width : 100;
+        progressBar.setMax(progressMax);
+        setProgress(progressMax);
+        shownSecond = -1;
+    }
+
+    public void onTick(long millisUntilFinished) {
+        long second = millisUntilFinished / 1000;
+        if (second != shownSecond && second < seconds.length) {
+            shownSecond = second;
+            textView.setText(seconds[(int) second]);
+        }
+        setProgress((int) (millisUntilFinished * progressMax / durationMs));
+    }
+
+    public void setProgress(int progress) {
+        if (progress != shownProgress) {
+            shownProgress = progress;
+            progressBar.setProgress(progress);
+        }
+    }
+
+    /**
+     * Show a text instead of the countdown, e.g. at the end of the workout.
+     */
+    public void setText(int textRes) {
+        shownSecond = -1;
+        textView.setText(textRes);
+    }
+}
@@ -0,0 +1,111 @@
+package de.baumann.sieben.session;
+
+/**
+ * Walks a {@link CueTimeline} along with the session. Each tick only pops
+ * the events that became due since the last one; nothing is recomputed per
+ * phase. A jump or restore moves the cursor without playing what was
+ * skipped. Free of Android dependencies.
+ */
+public class CuePlayer {
+
+    public interface Target {
+        /**
+         * @param event one of the CueTimeline.EVENT_ constants
+         * @param phase index of the plan phase the event belongs to
+         */
+        void onCue(int event, int phase);
+    }
+
+    private final CueTimeline timeline;
+    private final Target target;
+
+    private long repetition = 0;
+    private int next = 0;
+
+    public CuePlayer(CueTimeline timeline, Target target) {
+        this.timeline = timeline;
+        this.target = target;
+    }
+
+    /**
+     * Continue at a position without playing the events before it, e.g.
+     * after a jump to another phase. Events of earlier phases at the same
+     * moment, like the whistle of the phase before, are skipped as well.
+     * At the very start of a phase its leading announcement is played right
+     * away, the jump skipped the moment it was due.
+     * @param remaining millis left in the phase
+     */
+    public void seek(long repetition, int phaseIndex, long remaining) {
+        long offset = timeline.offsetOf(phaseIndex, remaining);
+        this.repetition = repetition;
+        next = timeline.indexAt(offset);
+        while (next < timeline.size() && timeline.getOffset(next) == offset
+                && timeline.getPhase(next) < phaseIndex) {
+            next++;
+        }
+
+        if (offset == timeline.getPhaseStart(phaseIndex) && phaseIndex > 0) {
+            long previousStart = timeline.getPhaseStart(phaseIndex - 1);
+            for (int i = next - 1; i >= 0 && timeline.getOffset(i) >= previousStart; i--) {
+                if (timeline.getPhase(i) == phaseIndex) {
+                    target.onCue(timeline.getEvent(i), phaseIndex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Play every event up to and including the position.
+     * @param remaining millis left in the phase
+     */
+    public void advanceTo(long repetition, int phaseIndex, long remaining) {
+        advance(repetition, timeline.offsetOf(phaseIndex, remaining));
+    }
+
+    /**
+     * Play every event up to and including the position.
+     * @param position millis of the session from the start of the first
+     *   repetition, see {@link WorkoutSession#getPosition()}
+     */
+    public void advanceTo(long position) {
+        long cycle = timeline.getCycle();
+        if (cycle > 0) {
+            advance(position / cycle, position % cycle);
+        }
+    }
+
+    /**
+     * @return position of the session at which the next event is due
+     */
+    public long getNextDue() {
+        long cycle = timeline.getCycle();
+        return repetition * cycle + (next < timeline.size() ? timeline.getOffset(next) : cycle);
+    }
+
+    private void advance(long repetition, long offset) {
+        while (this.repetition < repetition) {
+            playUntil(timeline.size());
+            this.repetition++;
+            next = 0;
+        }
+        int end = next;
+        while (end < timeline.size() && timeline.getOffset(end) <= offset) {
+            end++;
+        }
+        playUntil(end);
+    }
+
+    /**
+     * Play what is left of the current repetition, when the session ends.
+     */
+    public void finish() {
+        playUntil(timeline.size());
+    }
+
+    private void playUntil(int end) {
+        while (next < end) {
+            int i = next++;
+            target.onCue(timeline.getEvent(i), timeline.getPhase(i));
+        }
+    }
+}
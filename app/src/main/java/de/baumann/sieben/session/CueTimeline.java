@@ -0,0 +1,196 @@
+package de.baumann.sieben.session;
+
+import java.util.Arrays;
+
+/**
+ * Every cue of one repetition of a {@link WorkoutPlan}, compiled once into
+ * flat arrays sorted by time: phase starts, announcements, halfway marks,
+ * the 3-2-1 countdown and the whistle at the end of each phase. Offsets
+ * count from the start of the repetition, so the same timeline serves every
+ * repetition of an endless session. At equal offsets events keep the order
+ * they happen in, e.g. the whistle of a phase comes before the start of the
+ * next one. Immutable and free of Android dependencies; played by
+ * {@link CuePlayer}.
+ *
+ * An announcement may lead its phase: with the length of the spoken phrase
+ * known in advance it is placed that long before the boundary, so it ends
+ * as the phase starts instead of running into it. It never moves before the
+ * start of the previous phase or into the announcement before it.
+ */
+public final class CueTimeline {
+
+    public static final int EVENT_PHASE_START = 0;
+    public static final int EVENT_ANNOUNCE = 1;
+    public static final int EVENT_HALFWAY = 2;
+    public static final int EVENT_BEEP = 3;
+    public static final int EVENT_WHISTLE = 4;
+
+    // "3-2-1" beeps before the end of a phase
+    static final int BEEP_SECONDS = 3;
+
+    // low bits of a sort key keep the order of events at the same offset
+    private static final int SEQUENCE_BITS = 20;
+
+    private final long[] offsets;
+    private final int[] events;
+    private final int[] phases;
+    private final long[] phaseStarts;
+    private final long cycle;
+
+    private CueTimeline(long[] offsets, int[] events, int[] phases, long[] phaseStarts, long cycle) {
+        this.offsets = offsets;
+        this.events = events;
+        this.phases = phases;
+        this.phaseStarts = phaseStarts;
+        this.cycle = cycle;
+    }
+
+    public static CueTimeline compile(WorkoutPlan plan) {
+        return compile(plan, null);
+    }
+
+    /**
+     * @param leads millis each phase's announcement takes to speak, by phase
+     *   index, it starts that long before the phase; null to announce every
+     *   phase at its start
+     */
+    public static CueTimeline compile(WorkoutPlan plan, long[] leads) {
+        int count = plan.size();
+        long[] phaseStarts = new long[count];
+
+        // at most start, announcement, halfway, three beeps and whistle per phase
+        int capacity = count * (4 + BEEP_SECONDS);
+        if (capacity >= 1 << SEQUENCE_BITS) {
+            throw new IllegalArgumentException("too many phases");
+        }
+        long[] keys = new long[capacity];
+        int[] unsortedEvents = new int[capacity];
+        int[] unsortedPhases = new int[capacity];
+        int size = 0;
+
+        // events of one phase in the order they happen
+        long[] at = new long[4 + BEEP_SECONDS];
+        int[] what = new int[at.length];
+
+        long start = 0;
+        long previousStart = 0;
+        long spokenUntil = 0;
+        for (int i = 0; i < count; i++) {
+            Phase phase = plan.get(i);
+            long duration = Math.max(0, phase.getDurationMs());
+            long end = start + duration;
+            phaseStarts[i] = start;
+
+            int n = 0;
+            at[n] = start;
+            what[n++] = EVENT_PHASE_START;
+            if (phase.hasCue(Phase.CUE_ANNOUNCE)) {
+                long lead = leads != null && i < leads.length ? Math.max(0, leads[i]) : 0;
+                long earliest = Math.min(start, Math.max(previousStart, spokenUntil));
+                at[n] = Math.max(earliest, start - lead);
+                spokenUntil = at[n] + lead;
+                what[n++] = EVENT_ANNOUNCE;
+            }
+            if (phase.hasCue(Phase.CUE_HALFWAY) && duration > 0) {
+                at[n] = start + duration / 2;
+                what[n++] = EVENT_HALFWAY;
+            }
+            if (phase.hasCue(Phase.CUE_COUNTDOWN) && duration > BEEP_SECONDS * 1000) {
+                for (int second = BEEP_SECONDS; second >= 1; second--) {
+                    at[n] = end - second * 1000;
+                    what[n++] = EVENT_BEEP;
+                }
+            }
+            at[n] = end;
+            what[n++] = EVENT_WHISTLE;
+
+            for (int j = 0; j < n; j++) {
+                keys[size] = (at[j] << SEQUENCE_BITS) | size;
+                unsortedEvents[size] = what[j];
+                unsortedPhases[size] = i;
+                size++;
+            }
+            previousStart = start;
+            start = end;
+        }
+
+        keys = Arrays.copyOf(keys, size);
+        Arrays.sort(keys);
+
+        long[] offsets = new long[size];
+        int[] events = new int[size];
+        int[] phases = new int[size];
+        int mask = (1 << SEQUENCE_BITS) - 1;
+        for (int i = 0; i < size; i++) {
+            int source = (int) (keys[i] & mask);
+            offsets[i] = keys[i] >> SEQUENCE_BITS;
+            events[i] = unsortedEvents[source];
+            phases[i] = unsortedPhases[source];
+        }
+        return new CueTimeline(offsets, events, phases, phaseStarts, start);
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * @return millis from the start of the repetition to event {@code i}
+     */
+    public long getOffset(int i) {
+        return offsets[i];
+    }
+
+    /**
+     * @return one of the EVENT_ constants
+     */
+    public int getEvent(int i) {
+        return events[i];
+    }
+
+    /**
+     * @return index of the plan phase event {@code i} belongs to
+     */
+    public int getPhase(int i) {
+        return phases[i];
+    }
+
+    /**
+     * @return length of one repetition in millis
+     */
+    public long getCycle() {
+        return cycle;
+    }
+
+    /**
+     * @return offset at which phase {@code phaseIndex} starts
+     */
+    public long getPhaseStart(int phaseIndex) {
+        return phaseStarts[phaseIndex];
+    }
+
+    /**
+     * @return offset of the moment {@code remaining} millis before the end of a phase
+     */
+    public long offsetOf(int phaseIndex, long remaining) {
+        long end = phaseIndex + 1 < phaseStarts.length ? phaseStarts[phaseIndex + 1] : cycle;
+        return end - remaining;
+    }
+
+    /**
+     * @return index of the first event at or after {@code offset}, {@link #size()} if there is none
+     */
+    public int indexAt(long offset) {
+        int low = 0;
+        int high = offsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,27 @@
+package de.baumann.sieben.session;
+
+/**
+ * A {@link Clock} that only moves when told to. Lets the scheduler run on a
+ * plain JVM, e.g. to check that a long session ends exactly on time.
+ */
+public class ManualClock implements Clock {
+
+    private long now;
+
+    public ManualClock(long start) {
+        this.now = start;
+    }
+
+    @Override
+    public long elapsedRealtime() {
+        return now;
+    }
+
+    public void advance(long millis) {
+        now += millis;
+    }
+
+    public void set(long millis) {
+        now = millis;
+    }
+}
@@ -0,0 +1,109 @@
+package de.baumann.sieben.session;
+
+/**
+ * One step of a workout plan: the 5 sec. lead-in, an exercise or a break.
+ * Phases are immutable and have no Android dependencies; what is shown and
+ * said for a phase is looked up by {@link PhaseResources}, unless the phase
+ * comes from a program with a title of its own.
+ */
+public final class Phase {
+
+    public static final int TYPE_START = 0;
+    public static final int TYPE_EXERCISE = 1;
+    public static final int TYPE_BREAK = 2;
+    public static final int TYPE_SIDE_CHANGE = 3;
+
+    public static final int SIDE_NONE = 0;
+    public static final int SIDE_RIGHT = 1;
+    public static final int SIDE_LEFT = 2;
+
+    /** Exercise of a program that is not one of the built-in 12. */
+    public static final int EXERCISE_CUSTOM = 0;
+
+    // cues played during the phase, or-ed together
+    public static final int CUE_ANNOUNCE = 1;
+    public static final int CUE_HALFWAY = 2;
+    public static final int CUE_COUNTDOWN = 4;
+
+    private final int type;
+    private final int exercise;
+    private final int side;
+    private final long durationMs;
+    private final long recordedMs;
+    private final int cues;
+    private final String title;
+
+    /**
+     * A phase with the default cues and the built-in title.
+     */
+    Phase(int type, int exercise, int side, long durationMs, long recordedMs) {
+        this(type, exercise, side, durationMs, recordedMs, defaultCues(type), null);
+    }
+
+    /**
+     * @param type one of the TYPE_ constants
+     * @param exercise the exercise number (1..12) performed in this phase or
+     *   coming up after it, {@link #EXERCISE_CUSTOM} for others
+     * @param side which side of a two-sided exercise, one of the SIDE_ constants
+     * @param durationMs length of the countdown
+     * @param recordedMs time credited to the statistics when the phase completes,
+     *   0 if the phase does not count as a performed exercise
+     * @param cues CUE_ constants or-ed together
+     * @param title shown and announced instead of the built-in title, may be null
+     */
+    public Phase(int type, int exercise, int side, long durationMs, long recordedMs, int cues, String title) {
+        this.type = type;
+        this.exercise = exercise;
+        this.side = side;
+        this.durationMs = durationMs;
+        this.recordedMs = recordedMs;
+        this.cues = cues;
+        this.title = title;
+    }
+
+    /**
+     * @return announcement and 3-2-1 countdown, plus the halfway mark for exercises
+     */
+    public static int defaultCues(int type) {
+        return CUE_ANNOUNCE | CUE_COUNTDOWN | (type == TYPE_EXERCISE ? CUE_HALFWAY : 0);
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getExercise() {
+        return exercise;
+    }
+
+    public int getSide() {
+        return side;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public long getRecordedMs() {
+        return recordedMs;
+    }
+
+    public int getCues() {
+        return cues;
+    }
+
+    public boolean hasCue(int cue) {
+        return (cues & cue) != 0;
+    }
+
+    /**
+     * @return the title of a program phase, null for the built-in one
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean isBreak() {
+        return type != TYPE_EXERCISE;
+    }
+}
@@ -0,0 +1,74 @@
+package de.baumann.sieben.session;
+
+import android.content.Context;
+
+import de.baumann.sieben.R;
+
+/**
+ * Image, title and announcement of a {@link Phase}.
+ */
+public final class PhaseResources {
+
+    private static final int[] IMAGES = {
+            R.drawable.a01, R.drawable.a02, R.drawable.a03, R.drawable.a04,
+            R.drawable.a05, R.drawable.a06, R.drawable.a07, R.drawable.a08,
+            R.drawable.a09, R.drawable.a10, R.drawable.a11, R.drawable.a12
+    };
+
+    private static final int[] TITLES = {
+            R.string.act, R.string.act_2, R.string.act_3, R.string.act_4,
+            R.string.act_5, R.string.act_6, R.string.act_7, R.string.act_8,
+            R.string.act_9, R.string.act_10, R.string.act_11, R.string.act_12
+    };
+
+    // break before exercise 2..12
+    private static final int[] BREAK_TITLES = {
+            R.string.pau, R.string.pau_2, R.string.pau_3, R.string.pau_4,
+            R.string.pau_5, R.string.pau_6, R.string.pau_7, R.string.pau_8,
+            R.string.pau_9, R.string.pau_10, R.string.pau_11
+    };
+
+    private PhaseResources() {
+    }
+
+    public static int image(Phase phase) {
+        int exercise = phase.getExercise();
+        return exercise >= 1 && exercise <= IMAGES.length ? IMAGES[exercise - 1] : R.drawable.icon_intro;
+    }
+
+    /**
+     * @return the title of a program phase or the built-in one
+     */
+    public static String titleText(Context context, Phase phase) {
+        return phase.getTitle() != null ? phase.getTitle() : context.getString(title(phase));
+    }
+
+    public static String announcementText(Context context, Phase phase) {
+        return phase.getTitle() != null ? phase.getTitle() : context.getString(announcement(phase));
+    }
+
+    public static int title(Phase phase) {
+        switch (phase.getType()) {
+            case Phase.TYPE_START:
+                return R.string.app_name;
+            case Phase.TYPE_BREAK:
+                int next = phase.getExercise();
+                return next >= 2 && next <= BREAK_TITLES.length + 1 ? BREAK_TITLES[next - 2] : R.string.sn_pause;
+            case Phase.TYPE_SIDE_CHANGE:
+                return R.string.pau_112;
+            default:
+                if (phase.getSide() == Phase.SIDE_LEFT) {
+                    return R.string.act_122;
+                }
+                int exercise = phase.getExercise();
+                return exercise >= 1 && exercise <= TITLES.length ? TITLES[exercise - 1] : R.string.app_name;
+        }
+    }
+
+    public static int announcement(Phase phase) {
+        if (phase.getType() == Phase.TYPE_START) {
+            return R.string.start2;
+        }
+        return title(phase);
+    }
+}
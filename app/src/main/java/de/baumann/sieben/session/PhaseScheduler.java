@@ -0,0 +1,179 @@
+package de.baumann.sieben.session;
+
+/**
+ * Session-wide timeline. All phase boundaries are computed up front as offsets
+ * from a single anchor on the {@link Clock}, so late timer callbacks, phase
+ * changes and repetitions never add up to drift: a session ends at
+ * {@code anchor + planned length + time spent paused}.
+ * <p>
+ * Only a pause or an explicit jump moves the anchor. This class has no
+ * Android dependencies.
+ */
+public class PhaseScheduler {
+
+    private final Clock clock;
+    // end of phase i, relative to the start of a repetition
+    private final long[] ends;
+    private final long cycle;
+    private final int repetitions;
+
+    private long anchor;
+    private long step;
+    private long pausedAt = -1;
+    private boolean started = false;
+
+    /**
+     * @param clock time source
+     * @param durations length of each phase of one repetition in millis
+     * @param repetitions number of repetitions, 0 = endless
+     */
+    public PhaseScheduler(Clock clock, long[] durations, int repetitions) {
+        if (durations.length == 0) {
+            throw new IllegalArgumentException("no phases");
+        }
+        this.clock = clock;
+        this.ends = new long[durations.length];
+        long sum = 0;
+        for (int i = 0; i < durations.length; i++) {
+            sum += Math.max(0, durations[i]);
+            ends[i] = sum;
+        }
+        this.cycle = sum;
+        this.repetitions = repetitions;
+    }
+
+    /**
+     * Start the timeline now, beginning with the first phase.
+     */
+    public void start() {
+        started = true;
+        pausedAt = -1;
+        step = 0;
+        anchor = clock.elapsedRealtime();
+    }
+
+    /**
+     * Continue a timeline saved earlier, paused in the given phase.
+     * @param index phase of the repetition
+     * @param repetition zero based repetition
+     * @param remaining millis left in the phase, a value outside
+     *   (0, phase duration] restarts the phase
+     */
+    public void restore(int index, long repetition, long remaining) {
+        started = true;
+        step = repetition * ends.length + index;
+        long duration = getPhaseDuration();
+        if (remaining <= 0 || remaining > duration) {
+            remaining = duration;
+        }
+        long now = clock.elapsedRealtime();
+        pausedAt = now;
+        anchor = now + remaining - duration - startOffset(step);
+    }
+
+    /**
+     * Make phase {@code index} of the current repetition begin now.
+     */
+    public void jumpTo(int index) {
+        long repetition = step / ends.length;
+        step = repetition * ends.length + index;
+        long now = clock.elapsedRealtime();
+        anchor = now - startOffset(step);
+        if (pausedAt >= 0) {
+            pausedAt = now;
+        }
+    }
+
+    public void pause() {
+        if (started && pausedAt < 0) {
+            pausedAt = clock.elapsedRealtime();
+        }
+    }
+
+    public void resume() {
+        if (pausedAt >= 0) {
+            anchor += clock.elapsedRealtime() - pausedAt;
+            pausedAt = -1;
+        }
+    }
+
+    /**
+     * Move on to the next phase. The boundary stays where the timeline put it,
+     * no matter how late this is called.
+     * @return false if the last phase of the last repetition has ended
+     */
+    public boolean advance() {
+        if (isLastStep()) {
+            return false;
+        }
+        step++;
+        return true;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isPaused() {
+        return pausedAt >= 0;
+    }
+
+    public int getPhaseIndex() {
+        return (int) (step % ends.length);
+    }
+
+    /**
+     * @return zero based repetition the current phase belongs to
+     */
+    public long getRepetition() {
+        return step / ends.length;
+    }
+
+    public long getPhaseDuration() {
+        int index = getPhaseIndex();
+        return index == 0 ? ends[0] : ends[index] - ends[index - 1];
+    }
+
+    /**
+     * @return millis until the current phase ends, frozen while paused,
+     *   negative if the boundary already passed
+     */
+    public long getRemaining() {
+        long now = pausedAt >= 0 ? pausedAt : clock.elapsedRealtime();
+        return getPhaseEnd() - now;
+    }
+
+    /**
+     * @return millis of the timeline passed, from the start of the first
+     *   repetition to now, without the time spent paused
+     */
+    public long getPosition() {
+        return startOffset(step) + getPhaseDuration() - getRemaining();
+    }
+
+    /**
+     * @return absolute clock time at which the current phase ends
+     */
+    public long getPhaseEnd() {
+        return anchor + startOffset(step) + getPhaseDuration();
+    }
+
+    /**
+     * @return planned end of the whole session on the clock, or -1 if endless
+     */
+    public long getSessionEnd() {
+        if (repetitions == 0) {
+            return -1;
+        }
+        return anchor + cycle * repetitions;
+    }
+
+    private boolean isLastStep() {
+        return repetitions != 0 && step + 1 >= (long) repetitions * ends.length;
+    }
+
+    private long startOffset(long step) {
+        int index = (int) (step % ends.length);
+        return (step / ends.length) * cycle + (index == 0 ? 0 : ends[index - 1]);
+    }
+}
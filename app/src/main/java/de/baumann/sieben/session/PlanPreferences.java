@@ -0,0 +1,54 @@
+package de.baumann.sieben.session;
+
+import android.content.SharedPreferences;
+
+/**
+ * Reads the workout settings (actN, duration_exN, duration, duration2,
+ * repetitions) once and compiles them into a {@link WorkoutPlan}.
+ */
+public final class PlanPreferences {
+
+    private PlanPreferences() {
+    }
+
+    /**
+     * @return true if the key is one of the workout settings, or the
+     *   selected program that replaces them
+     */
+    public static boolean isPlanKey(String key) {
+        return key.startsWith("act") || key.startsWith("duration") || key.equals("repetitions")
+                || key.equals("program");
+    }
+
+    public static WorkoutPlan read(SharedPreferences sharedPref) {
+        long defaultDuration = readSeconds(sharedPref, "duration", "30") * 1000;
+        long breakDuration = readSeconds(sharedPref, "duration2", "10") * 1000;
+
+        boolean[] enabled = new boolean[WorkoutPlan.EXERCISES];
+        long[] durations = new long[WorkoutPlan.EXERCISES];
+        for (int ex = 1; ex <= WorkoutPlan.EXERCISES; ex++) {
+            enabled[ex - 1] = sharedPref.getBoolean("act" + ex, false);
+            long duration = readSeconds(sharedPref, "duration_ex" + ex, "0") * 1000;
+            durations[ex - 1] = duration == 0 ? defaultDuration : duration;
+        }
+
+        return WorkoutPlan.compile(enabled, durations, breakDuration, readRepetitions(sharedPref));
+    }
+
+    private static int readRepetitions(SharedPreferences sharedPref) {
+        try {
+            return Integer.parseInt(sharedPref.getString("repetitions", "1"));
+        } catch (NumberFormatException e) {
+            // Default to 1 repetition if invalid input
+            return 1;
+        }
+    }
+
+    private static long readSeconds(SharedPreferences sharedPref, String key, String defValue) {
+        try {
+            return Integer.parseInt(sharedPref.getString(key, defValue));
+        } catch (NumberFormatException e) {
+            return Integer.parseInt(defValue);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package de.baumann.sieben.session;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Position of a running {@link WorkoutSession} on disk, so a workout survives
+ * the death of its process. The record is a few dozen bytes: plan hash,
+ * phase index, repetition, the remaining time of the phase and the
+ * elapsedRealtime it was taken at. It is written with {@link AtomicFile} on a
+ * background thread, a crash mid-write keeps the previous record.
+ */
+public class SessionCheckpoint {
+
+    public interface Callback {
+        /** Called on the main thread, {@code checkpoint} is null if there is none. */
+        void onCheckpointRead(Record checkpoint);
+    }
+
+    /**
+     * One saved session position.
+     */
+    public static final class Record {
+        private final long planHash;
+        private final int phaseIndex;
+        private final int repetition;
+        private final long remaining;
+        private final boolean running;
+        private final long elapsedRealtime;
+        private final long wallTime;
+
+        Record(long planHash, int phaseIndex, int repetition, long remaining, boolean running,
+               long elapsedRealtime, long wallTime) {
+            this.planHash = planHash;
+            this.phaseIndex = phaseIndex;
+            this.repetition = repetition;
+            this.remaining = remaining;
+            this.running = running;
+            this.elapsedRealtime = elapsedRealtime;
+            this.wallTime = wallTime;
+        }
+
+        public long getPlanHash() {
+            return planHash;
+        }
+
+        public int getPhaseIndex() {
+            return phaseIndex;
+        }
+
+        public int getRepetition() {
+            return repetition;
+        }
+
+        /**
+         * @return millis left in the phase now; a running phase kept counting
+         *   down after the record was taken
+         */
+        public long getRemaining() {
+            if (!running) {
+                return remaining;
+            }
+            long passed = SystemClock.elapsedRealtime() - elapsedRealtime;
+            // the clock restarts with the device
+            return passed < 0 ? 0 : remaining - passed;
+        }
+
+        /**
+         * @return true if the record was taken within {@code maxAgeMs}
+         */
+        public boolean isRecent(long maxAgeMs) {
+            long age = System.currentTimeMillis() - wallTime;
+            return age >= 0 && age <= maxAgeMs;
+        }
+    }
+
+    private static final int VERSION = 1;
+
+    // writes are queued in order and outlive the service that made them
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final AtomicFile file;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public SessionCheckpoint(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), "session_checkpoint"));
+    }
+
+    /**
+     * Save the current position of the session.
+     */
+    public void save(WorkoutSession session) {
+        final Record record = new Record(session.getPlan().getHash(), session.getPhaseIndex(),
+                session.getRepetition(), session.getRemaining(), session.isRunning(),
+                SystemClock.elapsedRealtime(), System.currentTimeMillis());
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(record);
+            }
+        });
+    }
+
+    /**
+     * Forget the saved session, e.g. when it finished or was cancelled.
+     */
+    public void clear() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                file.delete();
+            }
+        });
+    }
+
+    public void read(final Callback callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Record record = readRecord();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onCheckpointRead(record);
+                    }
+                });
+            }
+        });
+    }
+
+    private void write(Record record) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(VERSION);
+            out.writeLong(record.planHash);
+            out.writeInt(record.phaseIndex);
+            out.writeInt(record.repetition);
+            out.writeLong(record.remaining);
+            out.writeBoolean(record.running);
+            out.writeLong(record.elapsedRealtime);
+            out.writeLong(record.wallTime);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w("Seven", "Saving the session failed", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private Record readRecord() {
+        FileInputStream stream = null;
+        try {
+            stream = file.openRead();
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            return new Record(in.readLong(), in.readInt(), in.readInt(), in.readLong(),
+                    in.readBoolean(), in.readLong(), in.readLong());
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w("Seven", "Reading the saved session failed", e);
+            return null;
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package de.baumann.sieben.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A workout compiled once at session start: the lead-in, the enabled
+ * exercises with their own durations and the breaks in between, plus the
+ * number of repetitions. Plans of stored programs are built from their
+ * phase list with {@link #of(List, int)}. Neighbouring breaks are precomputed, so every
+ * navigation step is an array lookup. Immutable and free of Android
+ * dependencies.
+ */
+public final class WorkoutPlan {
+
+    public static final int EXERCISES = 12;
+
+    public static final long START_DURATION = 5000;
+    static final long SIDE_CHANGE_DURATION = 5000;
+
+    // performed on the right side, then on the left
+    private static final int SIDE_PLANK = 12;
+
+    private final Phase[] phases;
+    private final int[] nextBreak;
+    private final int[] previousBreak;
+    private final int repetitions;
+    private final long length;
+    private final long hash;
+
+    private WorkoutPlan(Phase[] phases, int repetitions) {
+        this.phases = phases;
+        int count = phases.length;
+
+        nextBreak = new int[count];
+        int next = -1;
+        for (int i = count - 1; i >= 0; i--) {
+            nextBreak[i] = next;
+            if (phases[i].isBreak()) {
+                next = i;
+            }
+        }
+
+        previousBreak = new int[count];
+        int previous = -1;
+        long sum = 0;
+        long h = 1;
+        for (int i = 0; i < count; i++) {
+            previousBreak[i] = previous;
+            if (phases[i].isBreak()) {
+                previous = i;
+            }
+            sum += phases[i].getDurationMs();
+
+            Phase phase = phases[i];
+            h = 31 * h + phase.getType();
+            h = 31 * h + phase.getExercise();
+            h = 31 * h + phase.getSide();
+            h = 31 * h + phase.getDurationMs();
+            h = 31 * h + phase.getRecordedMs();
+            h = 31 * h + phase.getCues();
+            h = 31 * h + (phase.getTitle() != null ? phase.getTitle().hashCode() : 0);
+        }
+        length = sum;
+
+        // without exercises there is nothing to repeat
+        this.repetitions = count > 1 ? repetitions : 1;
+        hash = 31 * h + this.repetitions;
+    }
+
+    /**
+     * @param enabled which of the exercises 1..12 (index 0..11) take part
+     * @param exerciseMs duration of each exercise, the side plank is split in two halves
+     * @param breakMs duration of the break between two exercises
+     * @param repetitions how often the plan runs, 0 = endless
+     */
+    public static WorkoutPlan compile(boolean[] enabled, long[] exerciseMs, long breakMs, int repetitions) {
+        List<Phase> phases = new ArrayList<>();
+
+        int first = 0;
+        for (int ex = 1; ex <= EXERCISES; ex++) {
+            if (enabled[ex - 1]) {
+                first = ex;
+                break;
+            }
+        }
+
+        phases.add(new Phase(Phase.TYPE_START, first == 0 ? 1 : first, Phase.SIDE_NONE, START_DURATION, 0));
+
+        for (int ex = first; ex >= 1 && ex <= EXERCISES; ex++) {
+            if (!enabled[ex - 1]) {
+                continue;
+            }
+            if (ex != first) {
+                phases.add(new Phase(Phase.TYPE_BREAK, ex, Phase.SIDE_NONE, breakMs, 0));
+            }
+
+            long duration = exerciseMs[ex - 1];
+            if (ex == SIDE_PLANK) {
+                phases.add(new Phase(Phase.TYPE_EXERCISE, ex, Phase.SIDE_RIGHT, duration / 2, 0));
+                phases.add(new Phase(Phase.TYPE_SIDE_CHANGE, ex, Phase.SIDE_NONE, SIDE_CHANGE_DURATION, 0));
+                phases.add(new Phase(Phase.TYPE_EXERCISE, ex, Phase.SIDE_LEFT, duration / 2, duration));
+            } else {
+                phases.add(new Phase(Phase.TYPE_EXERCISE, ex, Phase.SIDE_NONE, duration, duration));
+            }
+        }
+
+        return new WorkoutPlan(phases.toArray(new Phase[0]), repetitions);
+    }
+
+    /**
+     * @param phases the phases of one repetition, starting with the lead-in
+     * @param repetitions how often the plan runs, 0 = endless
+     */
+    public static WorkoutPlan of(List<Phase> phases, int repetitions) {
+        if (phases.isEmpty()) {
+            throw new IllegalArgumentException("no phases");
+        }
+        return new WorkoutPlan(phases.toArray(new Phase[0]), repetitions);
+    }
+
+    public int size() {
+        return phases.length;
+    }
+
+    public Phase get(int index) {
+        return phases[index];
+    }
+
+    /**
+     * @return index of the phase after {@code index}, the lead-in after the last phase
+     */
+    public int next(int index) {
+        return (index + 1) % phases.length;
+    }
+
+    /**
+     * @return index of the next break after {@code index}, -1 if there is none
+     */
+    public int nextBreak(int index) {
+        return nextBreak[index];
+    }
+
+    /**
+     * @return index of the break (or lead-in) before {@code index}, -1 if there is none
+     */
+    public int previousBreak(int index) {
+        return previousBreak[index];
+    }
+
+    /**
+     * @return how often the plan runs, 0 = endless
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * @return length of one repetition in millis
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return fingerprint of the phases and repetitions, equal for plans
+     *   compiled from the same settings
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    public long[] getDurations() {
+        long[] durations = new long[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            durations[i] = phases[i].getDurationMs();
+        }
+        return durations;
+    }
+}
@@ -0,0 +1,219 @@
+package de.baumann.sieben.session;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * Drives a whole workout (lead-in, exercises, breaks and repetitions) as a
+ * single state machine, hosted by {@link de.baumann.sieben.WorkoutService}.
+ * Phase changes only notify the {@link Listener}, so the screen updates its
+ * views instead of launching a new activity for every exercise and break. Timing comes from one
+ * {@link PhaseScheduler} timeline for the whole session.
+ */
+public class WorkoutSession {
+
+    public interface Listener {
+        /** A phase became current, either by a regular transition or a skip. */
+        void onPhaseStarted(Phase phase);
+
+        void onTick(Phase phase, long millisUntilFinished);
+
+        /** The countdown of a phase ran out (not called for skipped phases). */
+        void onPhaseCompleted(Phase phase);
+
+        void onSessionFinished();
+    }
+
+    private static final long TICK_INTERVAL = 100;
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    private final WorkoutPlan plan;
+    private final PhaseScheduler scheduler;
+    private final Listener listener;
+    private final Handler handler = new Handler();
+    private final Runnable timerRunnable = new Runnable() {
+        @Override
+        public void run() {
+            onTimer();
+        }
+    };
+
+    private boolean finished = false;
+
+    public WorkoutSession(WorkoutPlan plan, Listener listener) {
+        this.plan = plan;
+        this.listener = listener;
+        this.scheduler = new PhaseScheduler(SYSTEM_CLOCK, plan.getDurations(), plan.getRepetitions());
+    }
+
+    public WorkoutPlan getPlan() {
+        return plan;
+    }
+
+    public int getPhaseIndex() {
+        return scheduler.getPhaseIndex();
+    }
+
+    public Phase getCurrentPhase() {
+        return plan.get(scheduler.getPhaseIndex());
+    }
+
+    /**
+     * @return the phase that follows the current one, the lead-in after the last phase
+     */
+    public Phase getNextPhase() {
+        return plan.get(plan.next(scheduler.getPhaseIndex()));
+    }
+
+    /**
+     * @return the current pass through the plan, counted from 0
+     */
+    public int getRepetition() {
+        return (int) scheduler.getRepetition();
+    }
+
+    /**
+     * @return milliseconds left in the current phase
+     */
+    public long getRemaining() {
+        return scheduler.getRemaining();
+    }
+
+    /**
+     * @return milliseconds of the plan passed since the start of the first
+     *   repetition, pauses left out
+     */
+    public long getPosition() {
+        return scheduler.getPosition();
+    }
+
+    public boolean isStarted() {
+        return scheduler.isStarted() && !finished;
+    }
+
+    public boolean isRunning() {
+        return isStarted() && !scheduler.isPaused();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Start the session with the lead-in phase.
+     */
+    public void start() {
+        finished = false;
+        scheduler.start();
+        listener.onPhaseStarted(getCurrentPhase());
+        onTimer();
+    }
+
+    /**
+     * Continue a session saved earlier, paused in the given phase.
+     * Listeners are not notified, the host shows the phase itself.
+     * @return false if the position does not fit this plan
+     */
+    public boolean restore(int phaseIndex, int repetition, long remaining) {
+        int repetitions = plan.getRepetitions();
+        if (phaseIndex < 0 || phaseIndex >= plan.size() || repetition < 0
+                || (repetitions != 0 && repetition >= repetitions)) {
+            return false;
+        }
+        handler.removeCallbacks(timerRunnable);
+        finished = false;
+        scheduler.restore(phaseIndex, repetition, remaining);
+        return true;
+    }
+
+    public void pause() {
+        if (isRunning()) {
+            scheduler.pause();
+            handler.removeCallbacks(timerRunnable);
+        }
+    }
+
+    public void resume() {
+        if (isStarted() && scheduler.isPaused()) {
+            scheduler.resume();
+            onTimer();
+        }
+    }
+
+    /**
+     * Jump to the next break, skipping the exercise in between.
+     * @return false if there is no later break
+     */
+    public boolean skipForward() {
+        int target = plan.nextBreak(scheduler.getPhaseIndex());
+        if (target < 0) {
+            return false;
+        }
+        jumpTo(target);
+        return true;
+    }
+
+    /**
+     * Jump back to the previous break (or the lead-in).
+     * @return false if there is no earlier break
+     */
+    public boolean skipBack() {
+        int target = plan.previousBreak(scheduler.getPhaseIndex());
+        if (target < 0) {
+            return false;
+        }
+        jumpTo(target);
+        return true;
+    }
+
+    /**
+     * Stop the countdown for good, e.g. when the host is closed.
+     */
+    public void cancel() {
+        handler.removeCallbacks(timerRunnable);
+        scheduler.pause();
+    }
+
+    private void jumpTo(int index) {
+        if (!scheduler.isStarted() || finished) {
+            finished = false;
+            scheduler.start();
+        }
+        scheduler.resume();
+        scheduler.jumpTo(index);
+        listener.onPhaseStarted(getCurrentPhase());
+        onTimer();
+    }
+
+    private void onTimer() {
+        handler.removeCallbacks(timerRunnable);
+
+        long remaining = scheduler.getRemaining();
+        // catch up with every boundary that passed, the timeline stays put
+        while (remaining <= 0) {
+            listener.onPhaseCompleted(getCurrentPhase());
+            if (!scheduler.advance()) {
+                finished = true;
+                listener.onSessionFinished();
+                return;
+            }
+            listener.onPhaseStarted(getCurrentPhase());
+            remaining = scheduler.getRemaining();
+        }
+
+        listener.onTick(getCurrentPhase(), remaining);
+
+        // wake up on the next full interval before the boundary
+        long delay = remaining % TICK_INTERVAL;
+        if (delay == 0) {
+            delay = TICK_INTERVAL;
+        }
+        handler.postDelayed(timerRunnable, delay);
+    }
+}
@@ -1,375 +0,0 @@
-package de.baumann.sieben.workouts;
-
-import android.content.Intent;
-import android.content.SharedPreferences;
-import android.content.pm.ActivityInfo;
-import android.os.Bundle;
-import android.preference.PreferenceManager;
-import android.support.design.widget.Snackbar;
-import android.support.v7.app.AppCompatActivity;
-import android.support.v7.widget.Toolbar;
-import android.view.Menu;
-import android.view.MenuItem;
-import android.widget.ImageView;
-import android.widget.ProgressBar;
-import android.widget.TextView;
-
-import at.juggle.sieben.SoundPool;
-import de.baumann.sieben.MainActivity;
-import de.baumann.sieben.helper.CountDownTimer;
-import de.baumann.sieben.helper.DailyStatsHelper;
-import de.baumann.sieben.pause.Pause;
-import de.baumann.sieben.pause.Pause10;
-import de.baumann.sieben.pause.Pause11;
-import de.baumann.sieben.pause.Pause2;
-import de.baumann.sieben.pause.Pause3;
-import de.baumann.sieben.pause.Pause4;
-import de.baumann.sieben.pause.Pause5;
-import de.baumann.sieben.pause.Pause6;
-import de.baumann.sieben.pause.Pause7;
-import de.baumann.sieben.pause.Pause8;
-import de.baumann.sieben.R;
-import de.baumann.sieben.helper.OnSwipeTouchListener;
-import de.baumann.sieben.helper.TTSManager;
-import de.baumann.sieben.helper.UserSettingsActivity;
-
-
-public class MainActivity10 extends AppCompatActivity {
-
-    private TextView textView;
-    private ProgressBar progressBar;
-    private TTSManager ttsManager = null;
-    private ImageView imageView;
-
-    private boolean isPaused = false;
-    private boolean isCanceled = false;
-    private long timeRemaining = 0;
-
-    private int duration;
-    private SharedPreferences sharedPref;
-
-    @Override
-    protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_PORTRAIT);
-        setContentView(R.layout.activity_main);
-
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings, false);
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings_exercises, false);
-        PreferenceManager.setDefaultValues(this, R.xml.user_settings_duration, false);
-        sharedPref = PreferenceManager.getDefaultSharedPreferences(MainActivity10.this);
-        final String dur = sharedPref.getString("duration_ex10", "0");
-        if (dur.equals("0")) {
-            duration = Integer.parseInt(sharedPref.getString("duration", "30"));
-        } else {
-            duration = Integer.parseInt(dur);
-        }
-
-        imageView = (ImageView) findViewById(R.id.imageView);
-        assert imageView != null;
-        imageView.setImageResource(R.drawable.a10);
-
-        Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
-        setSupportActionBar(toolbar);
-        setTitle(R.string.act_10);
-
-        progressBar = (ProgressBar)findViewById(R.id.progressBar);
-        assert progressBar != null;
-        progressBar.setRotation(180);
-
-        textView = (TextView) this.findViewById(R.id.timer);
-
-        ttsManager = new TTSManager();
-        ttsManager.init(this);
-
-        long millisInFuture = duration * 1000;
-        long countDownInterval = 100;
-
-
-        //Initialize a new CountDownTimer instance
-        new CountDownTimer(millisInFuture,countDownInterval){
-            public void onTick(long millisUntilFinished){
-                //do something in every tick
-                if(isPaused || isCanceled) {
-                    cancel();
-                } else {
-                    textView.setText(String.valueOf(millisUntilFinished / 1000));
-                    int progress = (int) (millisUntilFinished/(duration *10));
-                    progressBar.setProgress(progress);
-                    timeRemaining = millisUntilFinished;
-                }
-            }
-            public void onFinish(){
-                onCountdownFinish();
-            }
-        }.start();
-
-        imageView.setOnTouchListener(new OnSwipeTouchListener(MainActivity10.this) {
-            final SharedPreferences sharedPref = PreferenceManager.getDefaultSharedPreferences(MainActivity10.this);
-            public void onSwipeTop() {
-                isPaused = false;
-                isCanceled = false;
-
-                long millisInFuture = timeRemaining;
-                long countDownInterval = 100;
-
-                new CountDownTimer(millisInFuture, countDownInterval){
-                    public void onTick(long millisUntilFinished){
-                        if(isPaused || isCanceled) {
-                            cancel();
-                        } else {
-                            textView.setText(String.valueOf(millisUntilFinished / 1000));
-                            int progress = (int) (millisUntilFinished/(duration *10));
-                            progressBar.setProgress(progress);
-                            timeRemaining = millisUntilFinished;
-                        }
-                    }
-                    public void onFinish(){
-                        onCountdownFinish();
-                    }
-                }.start();
-                if (sharedPref.getBoolean ("tts", false)){
-                    String text = getResources().getString(R.string.sn_weiter);
-                    ttsManager.initQueue(text);
-                }
-                Snackbar.make(imageView, R.string.sn_weiter, Snackbar.LENGTH_LONG)
-                        .setAction("Action", null).show();
-            }
-
-            public void onSwipeRight() {
-                isCanceled = true;
-
-                if (sharedPref.getBoolean ("tts", false)){
-
-                    if (sharedPref.getBoolean("act9", false)) {
-                        String text = getResources().getString(R.string.pau_8);
-                        ttsManager.initQueue(text);
-                    } else if (sharedPref.getBoolean("act8", false)) {
-                        String text = getResources().getString(R.string.pau_7);
-                        ttsManager.initQueue(text);
-                    } else if (sharedPref.getBoolean("act7", false)) {
-                        String text = getResources().getString(R.string.pau_6);
-                        ttsManager.initQueue(text);
-                    } else if (sharedPref.getBoolean("act6", false)) {
-                        String text = getResources().getString(R.string.pau_5);
-                        ttsManager.initQueue(text);
-                    } else if (sharedPref.getBoolean("act5", false)) {
-                        String text = getResources().getString(R.string.pau_4);
-                        ttsManager.initQueue(text);
-                    } else if (sharedPref.getBoolean("act4", false)) {
-                        String text = getResources().getString(R.string.pau_3);
-                        ttsManager.initQueue(text);
-                    } else if (sharedPref.getBoolean("act3", false)) {
-                        String text = getResources().getString(R.string.pau_2);
-                        ttsManager.initQueue(text);
-                    } else if (sharedPref.getBoolean("act2", false)) {
-                        String text = getResources().getString(R.string.pau);
-                        ttsManager.initQueue(text);
-                    } else if (sharedPref.getBoolean("act1", false)) {
-                        String text = getResources().getString(R.string.act);
-                        ttsManager.initQueue(text);
-                    } else {
-                        String text = getResources().getString(R.string.sn_first);
-                        ttsManager.initQueue(text);
-                    }
-                }
-
-                if (sharedPref.getBoolean("act9", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause8.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act8", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause7.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act7", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause6.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act6", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause5.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act5", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause4.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act4", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause3.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act3", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause2.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act2", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act1", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, MainActivity.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else {
-                    Snackbar.make(imageView, R.string.sn_first, Snackbar.LENGTH_LONG)
-                            .setAction("Action", null).show();
-                }
-            }
-
-            public void onSwipeLeft() {
-
-                isCanceled = true;
-
-                if (sharedPref.getBoolean ("tts", false)){
-
-                    if (sharedPref.getBoolean("act11", false)) {
-                        String text = getResources().getString(R.string.pau_10);
-                        ttsManager.initQueue(text);
-                    } else  if (sharedPref.getBoolean("act12", false)) {
-                        String text = getResources().getString(R.string.pau_11);
-                        ttsManager.initQueue(text);
-                    } else {
-                        String text = getResources().getString(R.string.sn_last);
-                        ttsManager.initQueue(text);
-                    }
-                }
-
-                if (sharedPref.getBoolean("act11", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause10.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else if (sharedPref.getBoolean("act12", false)) {
-                    Intent intent_in = new Intent(MainActivity10.this, Pause11.class);
-                    startActivity(intent_in);
-                    overridePendingTransition(0, 0);
-                    finishAffinity();
-                } else {
-                    Snackbar.make(imageView, R.string.sn_last, Snackbar.LENGTH_LONG)
-                            .setAction("Action", null).show();
-                }
-            }
-
-            public void onSwipeBottom() {
-                if (sharedPref.getBoolean ("tts", false)){
-                    String text = getResources().getString(R.string.sn_pause);
-                    ttsManager.initQueue(text);
-                }
-                isPaused = true;
-                Snackbar.make(imageView, R.string.sn_pause, Snackbar.LENGTH_LONG)
-                        .setAction("Action", null).show();
-            }
-        });
-    }
-
-    @Override
-    public boolean onCreateOptionsMenu(Menu menu) {
-        // Inflate the menu; this adds items to the action bar if it is present.
-        getMenuInflater().inflate(R.menu.menu_main, menu);
-        return true;
-    }
-
-    @Override
-    public boolean onOptionsItemSelected(MenuItem item) {
-
-        int id = item.getItemId();
-
-        if (id == R.id.action_settings) {
-            Intent intent_in = new Intent(MainActivity10.this, UserSettingsActivity.class);
-            startActivity(intent_in);
-            overridePendingTransition(0, 0);
-            isCanceled = true;
-        }
-
-        return super.onOptionsItemSelected(item);
-    }
-
-    @Override
-    public void onBackPressed() {
-        isCanceled = true;
-        finishAffinity();
-    }
-
-    private void onCountdownFinish() {
-
-        progressBar.setProgress(0);
-
-        sharedPref.edit().putInt("ex10_number", (sharedPref.getInt("ex10_number", 0) + 1)).apply();
-        sharedPref.edit().putInt("ex10_time", (sharedPref.getInt("ex10_time", 0) + (duration * 1000))).apply();
-        
-        // Track daily statistics with actual workout duration
-        DailyStatsHelper.incrementTodayCount(this, duration * 1000);
-
-        if (sharedPref.getBoolean ("beep", false)){
-            SoundPool.playWhistle(getApplicationContext());
-        }
-
-        if (sharedPref.getBoolean ("tts", false)){
-
-            if (sharedPref.getBoolean("act11", false)) {
-                String text = getResources().getString(R.string.pau_10);
-                ttsManager.initQueue(text);
-            } else  if (sharedPref.getBoolean("act12", false)) {
-                String text = getResources().getString(R.string.pau_11);
-                ttsManager.initQueue(text);
-            } else {
-                String text = getResources().getString(R.string.end);
-                ttsManager.initQueue(text);
-            }
-        }
-
-        if (sharedPref.getBoolean("act11", false)) {
-            Intent intent_in = new Intent(MainActivity10.this, Pause10.class);
-            startActivity(intent_in);
-            overridePendingTransition(0, 0);
-            finishAffinity();
-        } else if (sharedPref.getBoolean("act12", false)) {
-            Intent intent_in = new Intent(MainActivity10.this, Pause11.class);
-            startActivity(intent_in);
-            overridePendingTransition(0, 0);
-            finishAffinity();
-        } else {
-            // Get the number of repetitions configured (0 = endless)
-            int targetRepetitions;
-            try {
-                targetRepetitions = Integer.parseInt(sharedPref.getString("repetitions", "1"));
-            } catch (NumberFormatException e) {
-                // Default to 1 repetition if invalid input
-                targetRepetitions = 1;
-            }
-            
-            int currentRepetition = sharedPref.getInt("current_repetition", 0);
-            
-            // Increment current repetition count
-            currentRepetition++;
-            
-            // Check if we should repeat the workout
-            boolean shouldRepeat = (targetRepetitions == 0) || (currentRepetition < targetRepetitions);
-            
-            if (shouldRepeat) {
-                // Store the current repetition count
-                sharedPref.edit().putInt("current_repetition", currentRepetition).apply();
-                
-                Intent intent_in = new Intent(MainActivity10.this, MainActivity.class);
-                intent_in.setAction("endless_workout");
-                startActivity(intent_in);
-                overridePendingTransition(0, 0);
-                finishAffinity();
-            } else {
-                // Reset repetition counter for next workout
-                sharedPref.edit().putInt("current_repetition", 0).apply();
-                
-                textView.setText(R.string.end);
-            }
-        }
-    }
-}
\ No newline at end of file
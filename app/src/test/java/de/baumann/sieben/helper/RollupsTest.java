@@ -0,0 +1,175 @@
+package de.baumann.sieben.helper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link Rollups} against a brute-force recomputation from the single
+ * events. The rollup table is modelled with maps, filled the two ways
+ * {@link DbAdapter_Events} does: a flush after every insert, and the
+ * rebuild over days in order. The reference sums every event whose date,
+ * taken apart with java.time, falls in a bucket.
+ */
+public class RollupsTest {
+
+    private static final int FIRST_DAY = 20191201;
+    private static final int DAYS = 5 * 366;
+
+    private final List<int[]> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Random random = new Random(11);
+        int day = FIRST_DAY;
+        for (int i = 0; i < DAYS; i++) {
+            int count = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(24);
+            for (int j = 0; j < count; j++) {
+                // day, millis
+                events.add(new int[] {day, 1000 * (1 + random.nextInt(60))});
+            }
+            day = StatsBuckets.nextDay(day);
+        }
+    }
+
+    @Test
+    public void insertedRollupsMatchBruteForce() {
+        final List<Map<Integer, long[]>> rollups = newRollups();
+        Rollups accumulator = new Rollups(new Rollups.Sink() {
+            @Override
+            public void put(int kind, int bucket, int count, long durationMs, double kcal) {
+                add(rollups.get(kind), bucket, count, durationMs);
+            }
+        });
+        for (int[] event : events) {
+            accumulator.add(event[0], 1, event[1], 0);
+            accumulator.flush();
+        }
+        assertMatchesBruteForce(rollups);
+    }
+
+    @Test
+    public void rebuiltRollupsMatchBruteForce() {
+        TreeMap<Integer, long[]> days = new TreeMap<>();
+        for (int[] event : events) {
+            add(days, event[0], 1, event[1]);
+        }
+        final List<Map<Integer, long[]>> rollups = newRollups();
+        Rollups accumulator = new Rollups(new Rollups.Sink() {
+            @Override
+            public void put(int kind, int bucket, int count, long durationMs, double kcal) {
+                // a row of the emptied table is only inserted once
+                assertTrue("bucket " + bucket + " seen twice", !rollups.get(kind).containsKey(bucket));
+                add(rollups.get(kind), bucket, count, durationMs);
+            }
+        });
+        for (Map.Entry<Integer, long[]> day : days.entrySet()) {
+            accumulator.add(day.getKey(), (int) day.getValue()[0], day.getValue()[1], 0);
+        }
+        accumulator.flush();
+        assertMatchesBruteForce(rollups);
+    }
+
+    @Test
+    public void energyIsSummedWithTheCounts() {
+        final double[] kcal = new double[StatsBuckets.KINDS];
+        Rollups accumulator = new Rollups(new Rollups.Sink() {
+            @Override
+            public void put(int kind, int bucket, int count, long durationMs, double energy) {
+                kcal[kind] += energy;
+            }
+        });
+        accumulator.add(20201230, 2, 60000, 1.5);
+        accumulator.add(20201231, 1, 30000, 0.25);
+        accumulator.add(20210101, 3, 90000, 2);
+        accumulator.flush();
+        // a flush with nothing open adds nothing
+        accumulator.flush();
+        for (int kind = 0; kind < StatsBuckets.KINDS; kind++) {
+            assertEquals("kind " + kind, 3.75, kcal[kind], 1e-9);
+        }
+    }
+
+    @Test
+    public void bucketRangesCoverEveryDayOnce() {
+        // as StatsLoader: walk the buckets of a range with StatsBuckets.add
+        int lastDay = StatsBuckets.addDays(FIRST_DAY, DAYS - 1);
+        for (int kind = 0; kind < StatsBuckets.KINDS; kind++) {
+            int first = StatsBuckets.bucket(kind, FIRST_DAY);
+            int last = StatsBuckets.bucket(kind, lastDay);
+            int days = 0;
+            int day = FIRST_DAY;
+            for (int bucket = first; ; bucket = StatsBuckets.add(kind, bucket, 1)) {
+                while (day != StatsBuckets.nextDay(lastDay) && StatsBuckets.bucket(kind, day) == bucket) {
+                    days++;
+                    day = StatsBuckets.nextDay(day);
+                }
+                if (bucket == last) {
+                    break;
+                }
+            }
+            assertEquals("kind " + kind, DAYS, days);
+        }
+    }
+
+    private void assertMatchesBruteForce(List<Map<Integer, long[]>> rollups) {
+        for (int kind = 0; kind < StatsBuckets.KINDS; kind++) {
+            long total = 0;
+            for (Map.Entry<Integer, long[]> rollup : rollups.get(kind).entrySet()) {
+                long count = 0;
+                long duration = 0;
+                for (int[] event : events) {
+                    if (referenceBucket(kind, event[0]) == rollup.getKey()) {
+                        count++;
+                        duration += event[1];
+                    }
+                }
+                assertEquals("count of " + rollup.getKey(), count, rollup.getValue()[0]);
+                assertEquals("time of " + rollup.getKey(), duration, rollup.getValue()[1]);
+                total += count;
+            }
+            // no event is missing from the rollups
+            assertEquals(events.size(), total);
+        }
+    }
+
+    private static int referenceBucket(int kind, int day) {
+        LocalDate date = LocalDate.of(day / 10000, (day / 100) % 100, day % 100);
+        if (kind == StatsBuckets.WEEK) {
+            return date.get(IsoFields.WEEK_BASED_YEAR) * 100 + date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        } else if (kind == StatsBuckets.MONTH) {
+            return date.getYear() * 100 + date.getMonthValue();
+        } else if (kind == StatsBuckets.YEAR) {
+            return date.getYear();
+        }
+        return day;
+    }
+
+    private static List<Map<Integer, long[]>> newRollups() {
+        List<Map<Integer, long[]>> rollups = new ArrayList<>();
+        for (int kind = 0; kind < StatsBuckets.KINDS; kind++) {
+            rollups.add(new TreeMap<Integer, long[]>());
+        }
+        return rollups;
+    }
+
+    private static void add(Map<Integer, long[]> rollup, int bucket, long count, long duration) {
+        long[] values = rollup.get(bucket);
+        if (values == null) {
+            values = new long[2];
+            rollup.put(bucket, values);
+        }
+        values[0] += count;
+        values[1] += duration;
+    }
+}
@@ -0,0 +1,72 @@
+package de.baumann.sieben.helper;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Bucket keys against java.time, which the app cannot use on older
+ * Android versions but which serves as the reference here.
+ */
+public class StatsBucketsTest {
+
+    @Test
+    public void epochDaysMatchLocalDate() {
+        for (LocalDate date = LocalDate.of(1999, 1, 1); date.getYear() < 2031; date = date.plusDays(1)) {
+            int day = key(date);
+            assertEquals(date.toEpochDay(), StatsBuckets.toEpochDay(day));
+            assertEquals(day, StatsBuckets.fromEpochDay(date.toEpochDay()));
+            assertEquals(key(date.plusDays(1)), StatsBuckets.nextDay(day));
+        }
+    }
+
+    @Test
+    public void bucketsMatchLocalDate() {
+        for (LocalDate date = LocalDate.of(1999, 1, 1); date.getYear() < 2031; date = date.plusDays(1)) {
+            int day = key(date);
+            int week = date.get(IsoFields.WEEK_BASED_YEAR) * 100 + date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+            assertEquals(day, StatsBuckets.bucket(StatsBuckets.DAY, day));
+            assertEquals("week of " + day, week, StatsBuckets.bucket(StatsBuckets.WEEK, day));
+            assertEquals(date.getYear() * 100 + date.getMonthValue(), StatsBuckets.bucket(StatsBuckets.MONTH, day));
+            assertEquals(date.getYear(), StatsBuckets.bucket(StatsBuckets.YEAR, day));
+        }
+    }
+
+    @Test
+    public void isoWeeksAcrossYearBoundaries() {
+        // week 53 spilling into the next calendar year
+        assertEquals(202053, StatsBuckets.isoWeek(20201231));
+        assertEquals(202053, StatsBuckets.isoWeek(20210103));
+        assertEquals(202101, StatsBuckets.isoWeek(20210104));
+        assertEquals(201553, StatsBuckets.isoWeek(20160101));
+        assertEquals(202653, StatsBuckets.isoWeek(20261231));
+        // week 1 starting in the previous calendar year
+        assertEquals(200901, StatsBuckets.isoWeek(20081229));
+        assertEquals(202001, StatsBuckets.isoWeek(20191230));
+        assertEquals(202452, StatsBuckets.isoWeek(20241229));
+
+        assertEquals(20201228, StatsBuckets.firstDayOfIsoWeek(202053));
+        assertEquals(20081229, StatsBuckets.firstDayOfIsoWeek(200901));
+    }
+
+    @Test
+    public void addStepsOverYearBoundaries() {
+        assertEquals(202101, StatsBuckets.add(StatsBuckets.WEEK, 202053, 1));
+        assertEquals(202053, StatsBuckets.add(StatsBuckets.WEEK, 202101, -1));
+        assertEquals(201601, StatsBuckets.add(StatsBuckets.WEEK, 201553, 1));
+        assertEquals(201952, StatsBuckets.add(StatsBuckets.WEEK, 202001, -1));
+        assertEquals(202101, StatsBuckets.add(StatsBuckets.MONTH, 202012, 1));
+        assertEquals(202012, StatsBuckets.add(StatsBuckets.MONTH, 202101, -1));
+        assertEquals(201912, StatsBuckets.add(StatsBuckets.MONTH, 202101, -13));
+        assertEquals(2021, StatsBuckets.add(StatsBuckets.YEAR, 2020, 1));
+        assertEquals(20210101, StatsBuckets.add(StatsBuckets.DAY, 20201231, 1));
+        assertEquals(20200229, StatsBuckets.add(StatsBuckets.DAY, 20200301, -1));
+    }
+
+    private static int key(LocalDate date) {
+        return StatsBuckets.day(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+}
@@ -0,0 +1,286 @@
+package de.baumann.sieben.session;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plays a {@link CueTimeline} along a {@link PhaseScheduler} on a
+ * {@link ManualClock}, the way WorkoutService does: a seek whenever a phase
+ * is entered by a start or a skip, and an advance on every tick. The cues
+ * that come out are compared with a list built straight from the plan.
+ */
+public class CuePlayerTest {
+
+    private static final long START = 1000000;
+
+    private WorkoutPlan plan;
+    private long cycle;
+
+    private ManualClock clock;
+    private PhaseScheduler scheduler;
+    private CuePlayer player;
+
+    // played cues as {phase, event, clock time}
+    private final List<long[]> played = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        plan = WorkoutPlan.of(Arrays.asList(
+                new Phase(Phase.TYPE_START, 1, Phase.SIDE_NONE, 5000, 0),
+                new Phase(Phase.TYPE_EXERCISE, 1, Phase.SIDE_NONE, 10000, 10000),
+                new Phase(Phase.TYPE_BREAK, 2, Phase.SIDE_NONE, 4000, 0),
+                new Phase(Phase.TYPE_EXERCISE, 2, Phase.SIDE_NONE, 2000, 2000),
+                new Phase(Phase.TYPE_BREAK, 3, Phase.SIDE_NONE, 6000, 0),
+                new Phase(Phase.TYPE_EXERCISE, 3, Phase.SIDE_NONE, 9000, 9000)), 0);
+        cycle = plan.getLength();
+    }
+
+    private void start(long[] leads) {
+        clock = new ManualClock(START);
+        scheduler = new PhaseScheduler(clock, plan.getDurations(), plan.getRepetitions());
+        player = new CuePlayer(CueTimeline.compile(plan, leads), new CuePlayer.Target() {
+            @Override
+            public void onCue(int event, int phase) {
+                played.add(new long[] {phase, event, clock.elapsedRealtime()});
+            }
+        });
+        scheduler.start();
+        player.seek(0, 0, scheduler.getRemaining());
+        tick(0);
+    }
+
+    /**
+     * Move the clock on and catch up with the boundaries, like
+     * WorkoutSession.onTimer followed by WorkoutService.onTick.
+     */
+    private void tick(long millis) {
+        clock.advance(millis);
+        while (scheduler.getRemaining() <= 0) {
+            assertTrue(scheduler.advance());
+        }
+        player.advanceTo(scheduler.getRepetition(), scheduler.getPhaseIndex(), scheduler.getRemaining());
+    }
+
+    /**
+     * A skip, like WorkoutSession.jumpTo with the seek of WorkoutService.onPhaseStarted.
+     */
+    private void jumpTo(int index) {
+        scheduler.jumpTo(index);
+        player.seek(scheduler.getRepetition(), index, scheduler.getRemaining());
+        tick(0);
+    }
+
+    /**
+     * @return the cues of one repetition as {phase, event, offset}, in the
+     *   order they are due, announcements at the start of their phase
+     */
+    private List<long[]> expectedCues() {
+        List<long[]> cues = new ArrayList<>();
+        long start = 0;
+        for (int i = 0; i < plan.size(); i++) {
+            Phase phase = plan.get(i);
+            long end = start + phase.getDurationMs();
+            cues.add(new long[] {i, CueTimeline.EVENT_PHASE_START, start});
+            cues.add(new long[] {i, CueTimeline.EVENT_ANNOUNCE, start});
+            if (phase.getType() == Phase.TYPE_EXERCISE) {
+                cues.add(new long[] {i, CueTimeline.EVENT_HALFWAY, start + phase.getDurationMs() / 2});
+            }
+            if (phase.getDurationMs() > 3000) {
+                for (long second = 3; second >= 1; second--) {
+                    cues.add(new long[] {i, CueTimeline.EVENT_BEEP, end - second * 1000});
+                }
+            }
+            cues.add(new long[] {i, CueTimeline.EVENT_WHISTLE, end});
+            start = end;
+        }
+        // the whistle of a phase comes before the start of the next one at the same moment
+        long[][] sorted = cues.toArray(new long[0][]);
+        for (int i = 1; i < sorted.length; i++) {
+            for (int j = i; j > 0 && sorted[j - 1][2] > sorted[j][2]; j--) {
+                long[] swap = sorted[j];
+                sorted[j] = sorted[j - 1];
+                sorted[j - 1] = swap;
+            }
+        }
+        return Arrays.asList(sorted);
+    }
+
+    private int count(int phase, int event) {
+        int n = 0;
+        for (long[] cue : played) {
+            if (cue[0] == phase && cue[1] == event) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    public void cuesPlayInOrderAndOnTimeOverRepetitions() {
+        start(null);
+        Random random = new Random(3);
+        while (clock.elapsedRealtime() < START + 5 * cycle) {
+            // mostly regular ticks, some late enough to pass several cues at once
+            tick(random.nextInt(8) == 0 ? 100 + random.nextInt(4000) : 100);
+        }
+
+        List<long[]> expected = expectedCues();
+        int repetitions = (int) ((clock.elapsedRealtime() - START) / cycle);
+        assertTrue(played.size() >= repetitions * expected.size());
+        for (int i = 0; i < played.size(); i++) {
+            long[] want = expected.get(i % expected.size());
+            long[] cue = played.get(i);
+            assertEquals("phase of cue " + i, want[0], cue[0]);
+            assertEquals("event of cue " + i, want[1], cue[1]);
+
+            long due = START + (i / expected.size()) * cycle + want[2];
+            assertTrue("cue " + i + " played early", cue[2] >= due);
+            assertTrue("cue " + i + " played late", cue[2] < due + 4100);
+        }
+    }
+
+    @Test
+    public void repetitionBoundaryWhistlesOnce() {
+        start(null);
+        int last = plan.size() - 1;
+
+        // a tick right on the boundary, then one far past the next boundary
+        tick(cycle - 100);
+        tick(100);
+        assertEquals(1, scheduler.getRepetition());
+        assertEquals(1, count(last, CueTimeline.EVENT_WHISTLE));
+        assertEquals(2, count(0, CueTimeline.EVENT_PHASE_START));
+
+        tick(cycle + 2500);
+        assertEquals(2, scheduler.getRepetition());
+        assertEquals(2, count(last, CueTimeline.EVENT_WHISTLE));
+        assertEquals(3, count(0, CueTimeline.EVENT_PHASE_START));
+        // 2.5 s into the lead-in, its whistle is still to come
+        assertEquals(2, count(0, CueTimeline.EVENT_WHISTLE));
+
+        for (int i = 0; i < played.size(); i++) {
+            long[] cue = played.get(i);
+            if (cue[1] == CueTimeline.EVENT_WHISTLE && i > 0) {
+                long[] before = played.get(i - 1);
+                assertTrue("whistle repeated", before[1] != CueTimeline.EVENT_WHISTLE || before[0] != cue[0]);
+            }
+        }
+    }
+
+    @Test
+    public void skipBackDoesNotReplayWhatWasPlayed() {
+        start(null);
+        // halfway through the exercise of phase 5
+        tick(5000 + 10000 + 4000 + 2000 + 6000 + 5000);
+        int before = played.size();
+        assertEquals(1, count(5, CueTimeline.EVENT_HALFWAY));
+
+        jumpTo(4);
+        // only the start of the break the skip went to
+        assertEquals(before + 2, played.size());
+        assertEquals(4, played.get(before)[0]);
+        assertEquals(CueTimeline.EVENT_PHASE_START, played.get(before)[1]);
+        assertEquals(CueTimeline.EVENT_ANNOUNCE, played.get(before + 1)[1]);
+        assertEquals(1, count(3, CueTimeline.EVENT_WHISTLE));
+
+        // the break and the exercise run again from the start
+        tick(6000 + 4500);
+        assertEquals(2, count(4, CueTimeline.EVENT_WHISTLE));
+        assertEquals(2, count(5, CueTimeline.EVENT_HALFWAY));
+        assertEquals(2, count(5, CueTimeline.EVENT_PHASE_START));
+        assertEquals(0, scheduler.getRepetition());
+    }
+
+    @Test
+    public void skipForwardAndRestoreDoNotPlayWhatWasSkipped() {
+        start(null);
+        tick(1000);
+        jumpTo(2);
+        tick(5000);
+        assertEquals(0, count(1, CueTimeline.EVENT_HALFWAY));
+        assertEquals(0, count(1, CueTimeline.EVENT_WHISTLE));
+        assertEquals(0, count(0, CueTimeline.EVENT_WHISTLE));
+        assertEquals(1, count(2, CueTimeline.EVENT_WHISTLE));
+
+        // a restore in the middle of the last exercise of the fourth repetition
+        played.clear();
+        scheduler.restore(5, 3, 4000);
+        player.seek(3, 5, 4000);
+        scheduler.resume();
+        tick(0);
+        assertEquals(0, played.size());
+        tick(4000);
+        assertEquals(4, scheduler.getRepetition());
+        // the countdown from 3 s, the whistle and the start of the next repetition
+        assertEquals(Arrays.asList(CueTimeline.EVENT_BEEP, CueTimeline.EVENT_BEEP, CueTimeline.EVENT_BEEP,
+                CueTimeline.EVENT_WHISTLE, CueTimeline.EVENT_PHASE_START, CueTimeline.EVENT_ANNOUNCE), events());
+    }
+
+    @Test
+    public void leadingAnnouncementPlaysOnceAfterSkip() {
+        long[] leads = new long[plan.size()];
+        leads[5] = 1500;
+        start(leads);
+
+        // the announcement of phase 5 is due 1.5 s before the break ends
+        tick(5000 + 10000 + 4000 + 2000 + 6000 - 1500);
+        assertEquals(1, count(5, CueTimeline.EVENT_ANNOUNCE));
+        assertEquals(0, count(5, CueTimeline.EVENT_PHASE_START));
+        tick(1500);
+        assertEquals(1, count(5, CueTimeline.EVENT_ANNOUNCE));
+        assertEquals(1, count(5, CueTimeline.EVENT_PHASE_START));
+
+        // a skip straight to the phase announces it right away, once
+        jumpTo(5);
+        tick(100);
+        assertEquals(2, count(5, CueTimeline.EVENT_ANNOUNCE));
+        assertEquals(2, count(5, CueTimeline.EVENT_PHASE_START));
+    }
+
+    @Test
+    public void advancingOnlyWhenDueMatchesEveryTick() {
+        start(null);
+        final List<long[]> due = new ArrayList<>();
+        CuePlayer byPosition = new CuePlayer(CueTimeline.compile(plan), new CuePlayer.Target() {
+            @Override
+            public void onCue(int event, int phase) {
+                due.add(new long[] {phase, event, clock.elapsedRealtime()});
+            }
+        });
+        byPosition.advanceTo(scheduler.getPosition());
+        Random random = new Random(5);
+        int advances = 0;
+        int ticks = 0;
+        while (clock.elapsedRealtime() < START + 3 * cycle) {
+            tick(random.nextInt(8) == 0 ? 100 + random.nextInt(4000) : 100);
+            ticks++;
+            long position = scheduler.getPosition();
+            if (position >= byPosition.getNextDue()) {
+                byPosition.advanceTo(position);
+                advances++;
+            }
+        }
+
+        assertEquals(played.size(), due.size());
+        for (int i = 0; i < played.size(); i++) {
+            assertTrue("cue " + i, Arrays.equals(played.get(i), due.get(i)));
+        }
+        assertTrue(advances < ticks / 4);
+    }
+
+    private List<Integer> events() {
+        List<Integer> events = new ArrayList<>();
+        for (long[] cue : played) {
+            events.add((int) cue[1]);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,115 @@
+package de.baumann.sieben.session;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the scheduler on a {@link ManualClock} the way WorkoutSession drives
+ * it: ticks that arrive late, several boundaries passed in one tick, pauses.
+ * Every boundary must land on the anchor plus the planned phases plus the
+ * time spent paused, however long the session runs.
+ */
+public class PhaseSchedulerTest {
+
+    private static final long START = 1000000;
+    private static final long[] DURATIONS = {5000, 30000, 10000, 45000, 7000, 1000};
+
+    @Test
+    public void endlessSessionWithPausesAndLateTicksDoesNotDrift() {
+        ManualClock clock = new ManualClock(START);
+        PhaseScheduler scheduler = new PhaseScheduler(clock, DURATIONS, 0);
+        Random random = new Random(7);
+
+        scheduler.start();
+        long expectedEnd = START + DURATIONS[0];
+        long paused = 0;
+        int boundaries = 0;
+
+        while (scheduler.getRepetition() < 12) {
+            if (random.nextInt(50) == 0) {
+                long pause = 1 + random.nextInt(20000);
+                scheduler.pause();
+                long frozen = scheduler.getRemaining();
+                clock.advance(pause);
+                assertEquals("remaining while paused", frozen, scheduler.getRemaining());
+                scheduler.resume();
+                paused += pause;
+                expectedEnd += pause;
+            }
+
+            // a tick 100 ms later, sometimes much later
+            clock.advance(random.nextInt(10) == 0 ? 100 + random.nextInt(3000) : 100);
+
+            while (scheduler.getRemaining() <= 0) {
+                assertEquals("boundary " + boundaries, expectedEnd, scheduler.getPhaseEnd());
+                assertTrue(scheduler.advance());
+                boundaries++;
+                expectedEnd += DURATIONS[scheduler.getPhaseIndex()];
+            }
+            assertEquals(expectedEnd, scheduler.getPhaseEnd());
+        }
+
+        long cycle = 0;
+        for (long duration : DURATIONS) {
+            cycle += duration;
+        }
+        assertEquals(12 * DURATIONS.length, boundaries);
+        // the 13th repetition starts exactly 12 cycles plus the pauses after the start
+        assertEquals(START + 12 * cycle + paused + DURATIONS[0], scheduler.getPhaseEnd());
+    }
+
+    @Test
+    public void finiteSessionEndsOnPlannedTime() {
+        ManualClock clock = new ManualClock(START);
+        PhaseScheduler scheduler = new PhaseScheduler(clock, DURATIONS, 10);
+        scheduler.start();
+        long plannedEnd = scheduler.getSessionEnd();
+
+        scheduler.pause();
+        clock.advance(4321);
+        scheduler.resume();
+
+        // ticks of 333 ms never meet a boundary exactly
+        while (true) {
+            clock.advance(333);
+            boolean finished = false;
+            while (scheduler.getRemaining() <= 0) {
+                if (!scheduler.advance()) {
+                    finished = true;
+                    break;
+                }
+            }
+            if (finished) {
+                break;
+            }
+        }
+        assertEquals(plannedEnd + 4321, scheduler.getPhaseEnd());
+        assertEquals(9, scheduler.getRepetition());
+        assertFalse(scheduler.advance());
+    }
+
+    @Test
+    public void jumpAndRestoreKeepTheTimelineOfTheRepetition() {
+        ManualClock clock = new ManualClock(START);
+        PhaseScheduler scheduler = new PhaseScheduler(clock, DURATIONS, 0);
+        scheduler.start();
+
+        clock.advance(12345);
+        scheduler.jumpTo(3);
+        assertEquals(START + 12345 + DURATIONS[3], scheduler.getPhaseEnd());
+
+        PhaseScheduler restored = new PhaseScheduler(clock, DURATIONS, 0);
+        restored.restore(2, 4, 2500);
+        assertTrue(restored.isPaused());
+        assertEquals(2500, restored.getRemaining());
+        clock.advance(60000);
+        restored.resume();
+        assertEquals(2500, restored.getRemaining());
+        assertEquals(4, restored.getRepetition());
+    }
+}
@@ -0,0 +1,209 @@
+package de.baumann.sieben.session;
+
+import android.content.SharedPreferences;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiles plans from settings the way WorkoutService does, through
+ * {@link PlanPreferences} on a map of preferences, and checks the phases,
+ * the precomputed breaks and the fingerprint against the plan written out
+ * by hand.
+ */
+public class WorkoutPlanTest {
+
+    private static long[] durations(long ms) {
+        long[] durations = new long[WorkoutPlan.EXERCISES];
+        Arrays.fill(durations, ms);
+        return durations;
+    }
+
+    private static boolean[] enabled(int... exercises) {
+        boolean[] enabled = new boolean[WorkoutPlan.EXERCISES];
+        for (int ex : exercises) {
+            enabled[ex - 1] = true;
+        }
+        return enabled;
+    }
+
+    private static void assertPhase(Phase phase, int type, int exercise, int side, long durationMs, long recordedMs) {
+        assertEquals("type", type, phase.getType());
+        assertEquals("exercise", exercise, phase.getExercise());
+        assertEquals("side", side, phase.getSide());
+        assertEquals("duration", durationMs, phase.getDurationMs());
+        assertEquals("recorded", recordedMs, phase.getRecordedMs());
+    }
+
+    @Test
+    public void compileAddsLeadInBreaksAndSplitSidePlank() {
+        long[] exerciseMs = durations(30000);
+        exerciseMs[11] = 40000;
+        WorkoutPlan plan = WorkoutPlan.compile(enabled(3, 5, 12), exerciseMs, 10000, 2);
+
+        assertEquals(8, plan.size());
+        assertPhase(plan.get(0), Phase.TYPE_START, 3, Phase.SIDE_NONE, WorkoutPlan.START_DURATION, 0);
+        assertPhase(plan.get(1), Phase.TYPE_EXERCISE, 3, Phase.SIDE_NONE, 30000, 30000);
+        assertPhase(plan.get(2), Phase.TYPE_BREAK, 5, Phase.SIDE_NONE, 10000, 0);
+        assertPhase(plan.get(3), Phase.TYPE_EXERCISE, 5, Phase.SIDE_NONE, 30000, 30000);
+        assertPhase(plan.get(4), Phase.TYPE_BREAK, 12, Phase.SIDE_NONE, 10000, 0);
+        // the whole time is recorded once, with the second side
+        assertPhase(plan.get(5), Phase.TYPE_EXERCISE, 12, Phase.SIDE_RIGHT, 20000, 0);
+        assertPhase(plan.get(6), Phase.TYPE_SIDE_CHANGE, 12, Phase.SIDE_NONE, WorkoutPlan.SIDE_CHANGE_DURATION, 0);
+        assertPhase(plan.get(7), Phase.TYPE_EXERCISE, 12, Phase.SIDE_LEFT, 20000, 40000);
+        assertEquals(2, plan.getRepetitions());
+        assertEquals(WorkoutPlan.START_DURATION + 30000 + 10000 + 30000 + 10000 + 20000
+                + WorkoutPlan.SIDE_CHANGE_DURATION + 20000, plan.getLength());
+    }
+
+    @Test
+    public void breaksAreLookedUpBothWays() {
+        WorkoutPlan plan = WorkoutPlan.compile(enabled(1, 2, 12), durations(30000), 10000, 1);
+        // start, ex 1, break, ex 2, break, right, side change, left
+        int[] next = {2, 2, 4, 4, 6, 6, -1, -1};
+        int[] previous = {-1, 0, 0, 2, 2, 4, 4, 6};
+        for (int i = 0; i < plan.size(); i++) {
+            assertEquals("next break of " + i, next[i], plan.nextBreak(i));
+            assertEquals("previous break of " + i, previous[i], plan.previousBreak(i));
+        }
+        assertEquals(1, plan.next(0));
+        assertEquals(0, plan.next(plan.size() - 1));
+    }
+
+    @Test
+    public void noExerciseLeavesOnlyTheLeadIn() {
+        WorkoutPlan plan = WorkoutPlan.compile(new boolean[WorkoutPlan.EXERCISES], durations(30000), 10000, 0);
+        assertEquals(1, plan.size());
+        assertPhase(plan.get(0), Phase.TYPE_START, 1, Phase.SIDE_NONE, WorkoutPlan.START_DURATION, 0);
+        // nothing to repeat, so not endless either
+        assertEquals(1, plan.getRepetitions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void programWithoutPhasesIsRejected() {
+        WorkoutPlan.of(Collections.<Phase>emptyList(), 1);
+    }
+
+    @Test
+    public void hashFollowsTheSettings() {
+        WorkoutPlan plan = WorkoutPlan.compile(enabled(1, 4), durations(30000), 10000, 1);
+        assertEquals(plan.getHash(), WorkoutPlan.compile(enabled(1, 4), durations(30000), 10000, 1).getHash());
+        assertTrue(plan.getHash() != WorkoutPlan.compile(enabled(1, 4), durations(30000), 10000, 2).getHash());
+        assertTrue(plan.getHash() != WorkoutPlan.compile(enabled(1, 4), durations(30000), 15000, 1).getHash());
+        assertTrue(plan.getHash() != WorkoutPlan.compile(enabled(1, 5), durations(30000), 10000, 1).getHash());
+    }
+
+    @Test
+    public void preferencesAreParsedWithDefaults() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("act2", true);
+        values.put("act7", true);
+        values.put("duration", "45");
+        values.put("duration_ex7", "20");
+        values.put("duration2", "15");
+        values.put("repetitions", "3");
+        WorkoutPlan plan = PlanPreferences.read(new MapPreferences(values));
+
+        assertEquals(4, plan.size());
+        assertPhase(plan.get(1), Phase.TYPE_EXERCISE, 2, Phase.SIDE_NONE, 45000, 45000);
+        assertPhase(plan.get(2), Phase.TYPE_BREAK, 7, Phase.SIDE_NONE, 15000, 0);
+        assertPhase(plan.get(3), Phase.TYPE_EXERCISE, 7, Phase.SIDE_NONE, 20000, 20000);
+        assertEquals(3, plan.getRepetitions());
+    }
+
+    @Test
+    public void invalidPreferencesFallBackToDefaults() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("act1", true);
+        values.put("duration", "thirty");
+        values.put("duration_ex1", "");
+        values.put("duration2", "10s");
+        values.put("repetitions", "many");
+        WorkoutPlan plan = PlanPreferences.read(new MapPreferences(values));
+
+        assertEquals(2, plan.size());
+        assertPhase(plan.get(1), Phase.TYPE_EXERCISE, 1, Phase.SIDE_NONE, 30000, 30000);
+        assertEquals(1, plan.getRepetitions());
+        assertFalse(PlanPreferences.isPlanKey("tts"));
+        assertTrue(PlanPreferences.isPlanKey("duration_ex1"));
+    }
+
+    /**
+     * Read-only preferences backed by a map.
+     */
+    private static class MapPreferences implements SharedPreferences {
+
+        private final Map<String, Object> values;
+
+        MapPreferences(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        private Object get(String key, Object defValue) {
+            return values.containsKey(key) ? values.get(key) : defValue;
+        }
+
+        @Override
+        public Map<String, ?> getAll() {
+            return values;
+        }
+
+        @Override
+        public String getString(String key, String defValue) {
+            return (String) get(key, defValue);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Set<String> getStringSet(String key, Set<String> defValues) {
+            return (Set<String>) get(key, defValues);
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            return (Integer) get(key, defValue);
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            return (Long) get(key, defValue);
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            return (Float) get(key, defValue);
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            return (Boolean) get(key, defValue);
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.baumann.sieben.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import de.baumann.sieben.helper.StatsBuckets;
+
+/**
+ * Turning a date into a statistics key: the former daily_stats_yyyyMMdd
+ * string against the integer day and week keys used now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateKeyBenchmark {
+
+    private Calendar calendar;
+    private long epochDay;
+
+    @Setup
+    public void setUp() {
+        calendar = Calendar.getInstance();
+        calendar.set(2026, Calendar.OCTOBER, 18);
+        epochDay = StatsBuckets.toEpochDay(20261018);
+    }
+
+    @Benchmark
+    public String simpleDateFormatKey() {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd", Locale.US);
+        return "daily_stats_" + sdf.format(calendar.getTime());
+    }
+
+    @Benchmark
+    public int calendarDayKey() {
+        return calendar.get(Calendar.YEAR) * 10000
+                + (calendar.get(Calendar.MONTH) + 1) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH);
+    }
+
+    @Benchmark
+    public int epochDayKey() {
+        return StatsBuckets.fromEpochDay(epochDay);
+    }
+
+    @Benchmark
+    public int isoWeekKey() {
+        return StatsBuckets.isoWeek(20261018);
+    }
+}
@@ -0,0 +1,131 @@
+package de.baumann.sieben.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.baumann.sieben.helper.DayFile;
+import de.baumann.sieben.helper.StatsBuckets;
+
+/**
+ * Single day and week lookups of DailyStatsHelper over a long synthetic
+ * history: the former daily_stats_ / daily_time_ preference keys against
+ * the memory-mapped day records of {@link DayFile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DayFileBenchmark {
+
+    // fixed "today", so runs are comparable
+    private static final int TODAY = 20261018;
+
+    @Param({"1", "10"})
+    public int years;
+
+    // former storage: daily_stats_yyyyMMdd -> count, daily_time_yyyyMMdd -> millis
+    private Map<String, Object> dailyKeys;
+
+    private File path;
+    private DayFile dayFile;
+
+    private int[] days;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        int size = years * 366;
+        days = new int[size];
+        dailyKeys = new HashMap<>();
+        path = File.createTempFile("days", ".bin");
+        dayFile = new DayFile(path);
+
+        int day = StatsBuckets.addDays(TODAY, 1 - size);
+        long event = 0;
+        for (int i = 0; i < size; i++) {
+            days[i] = day;
+            // most days have one workout of 12 exercises, some none
+            if (random.nextInt(4) != 0) {
+                for (int exercise = 1; exercise <= 12; exercise++) {
+                    dayFile.add(day, exercise, 1, 30000, ++event);
+                }
+                dailyKeys.put("daily_stats_" + day, 12);
+                dailyKeys.put("daily_time_" + day, 12 * 30000L);
+            }
+            day = StatsBuckets.nextDay(day);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        dayFile.close();
+        //noinspection ResultOfMethodCallIgnored
+        path.delete();
+    }
+
+    private int nextDay() {
+        next = next + 1 < days.length ? next + 1 : 0;
+        return days[next];
+    }
+
+    @Benchmark
+    public long dayFromDailyKeys() {
+        int day = nextDay();
+        Object count = dailyKeys.get("daily_stats_" + day);
+        Object time = dailyKeys.get("daily_time_" + day);
+        return (count == null ? 0 : (Integer) count) + (time == null ? 0 : (Long) time);
+    }
+
+    @Benchmark
+    public long dayFromDayFile() {
+        int day = nextDay();
+        return dayFile.getCount(day) + dayFile.getTime(day);
+    }
+
+    /**
+     * Seven consecutive days, as read by the weekly overview.
+     */
+    @Benchmark
+    public long weekFromDailyKeys() {
+        int day = nextDay();
+        long total = 0;
+        for (int i = 0; i < 7; i++) {
+            Object time = dailyKeys.get("daily_time_" + day);
+            total += time == null ? 0 : (Long) time;
+            day = StatsBuckets.nextDay(day);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long weekFromDayFile() {
+        int[] counts = new int[7];
+        long[] times = new long[7];
+        dayFile.read(nextDay(), counts, times);
+        long total = 0;
+        for (long time : times) {
+            total += time;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,188 @@
+package de.baumann.sieben.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import de.baumann.sieben.helper.Rollups;
+import de.baumann.sieben.helper.StatsBuckets;
+
+/**
+ * Range aggregations of the statistics screen over a synthetic history of
+ * one or more years: the former per day preference lookups against the
+ * rollups maintained by DbAdapter_Events. The rollups are summed up by the
+ * Rollups class of the app; the SQLite table they are written to is
+ * modelled with sorted maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsBenchmark {
+
+    // fixed "today", so runs are comparable
+    private static final int TODAY = 20261018;
+
+    @Param({"1", "5"})
+    public int years;
+
+    // former storage: daily_stats_yyyyMMdd -> count
+    private Map<String, Integer> dailyKeys;
+
+    // count per bucket, one map per StatsBuckets kind
+    private List<TreeMap<Integer, Integer>> rollups;
+
+    // adds to the buckets of the maps, like the upsert of DbAdapter_Events
+    private Rollups inserts;
+
+    private int[] days;
+    private int[] counts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int size = years * 366;
+        days = new int[size];
+        counts = new int[size];
+        dailyKeys = new HashMap<>();
+        rollups = new ArrayList<>();
+        for (int kind = 0; kind < StatsBuckets.KINDS; kind++) {
+            rollups.add(new TreeMap<Integer, Integer>());
+        }
+        inserts = new Rollups(new Rollups.Sink() {
+            @Override
+            public void put(int kind, int bucket, int count, long durationMs, double kcal) {
+                Integer old = rollups.get(kind).get(bucket);
+                rollups.get(kind).put(bucket, old == null ? count : old + count);
+            }
+        });
+
+        int day = StatsBuckets.addDays(TODAY, 1 - size);
+        for (int i = 0; i < size; i++) {
+            // most days have one workout of 12 exercises, some none, some more
+            int count = random.nextInt(4) == 0 ? 0 : 12 * (1 + random.nextInt(2));
+            days[i] = day;
+            counts[i] = count;
+            if (count > 0) {
+                dailyKeys.put("daily_stats_" + day, count);
+                addToRollups(day, count);
+            }
+            day = StatsBuckets.nextDay(day);
+        }
+    }
+
+    private void addToRollups(int day, int count) {
+        inserts.add(day, count, 0, 0);
+        inserts.flush();
+    }
+
+    /**
+     * Year to date per week the way it was done before: a Calendar per week,
+     * a date format and a key lookup per day.
+     */
+    @Benchmark
+    public int ytdWeeksFromDailyKeys() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(TODAY / 10000, (TODAY / 100) % 100 - 1, TODAY % 100);
+        int currentWeek = calendar.get(Calendar.WEEK_OF_YEAR);
+        int currentYear = calendar.get(Calendar.YEAR);
+
+        int total = 0;
+        for (int week = 1; week <= currentWeek; week++) {
+            Calendar weekCalendar = Calendar.getInstance();
+            weekCalendar.set(Calendar.YEAR, currentYear);
+            weekCalendar.set(Calendar.WEEK_OF_YEAR, week);
+            weekCalendar.set(Calendar.DAY_OF_WEEK, Calendar.SUNDAY);
+            for (int day = 0; day < 7; day++) {
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd", Locale.US);
+                Integer count = dailyKeys.get("daily_stats_" + sdf.format(weekCalendar.getTime()));
+                total += count == null ? 0 : count;
+                weekCalendar.add(Calendar.DAY_OF_YEAR, 1);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int ytdWeeksFromRollups() {
+        int currentWeek = StatsBuckets.isoWeek(TODAY);
+        int firstWeek = (currentWeek / 100) * 100 + 1;
+        int total = 0;
+        for (int count : rollups.get(StatsBuckets.WEEK).subMap(firstWeek, true, currentWeek, true).values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Monthly history of everything recorded, summed up day by day.
+     */
+    @Benchmark
+    public int monthsBruteForce() {
+        Map<Integer, Integer> months = new HashMap<>();
+        for (int i = 0; i < days.length; i++) {
+            int month = days[i] / 100;
+            Integer old = months.get(month);
+            months.put(month, old == null ? counts[i] : old + counts[i]);
+        }
+        return months.size();
+    }
+
+    @Benchmark
+    public int monthsFromRollups() {
+        int first = StatsBuckets.bucket(StatsBuckets.MONTH, days[0]);
+        int last = StatsBuckets.bucket(StatsBuckets.MONTH, TODAY);
+        return rollups.get(StatsBuckets.MONTH).subMap(first, true, last, true).size();
+    }
+
+    /**
+     * Work added to every recorded exercise: updating its four buckets.
+     */
+    @Benchmark
+    public int recordExercise() {
+        addToRollups(TODAY, 1);
+        return rollups.get(StatsBuckets.DAY).size();
+    }
+
+    /**
+     * Rebuilding all rollups from the day totals, as done on upgrade.
+     */
+    @Benchmark
+    public int rebuildRollups() {
+        final int[] buckets = new int[1];
+        Rollups rebuild = new Rollups(new Rollups.Sink() {
+            @Override
+            public void put(int kind, int bucket, int count, long durationMs, double kcal) {
+                buckets[0]++;
+            }
+        });
+        for (int i = 0; i < days.length; i++) {
+            if (counts[i] > 0) {
+                rebuild.add(days[i], counts[i], 0, 0);
+            }
+        }
+        rebuild.flush();
+        return buckets[0];
+    }
+}
@@ -0,0 +1,119 @@
+package de.baumann.sieben.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import de.baumann.sieben.session.CuePlayer;
+import de.baumann.sieben.session.CueTimeline;
+import de.baumann.sieben.session.ManualClock;
+import de.baumann.sieben.session.PhaseScheduler;
+import de.baumann.sieben.session.WorkoutPlan;
+
+/**
+ * The timer hot path of a running workout: the PhaseScheduler and the
+ * CuePlayer of the app on a ManualClock, so no real time passes.
+ * WorkoutSession needs an Android Handler, so its onTimer and the cue
+ * check of WorkoutService.advanceCues are repeated here in a few lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    private static final long TICK_INTERVAL = 100;
+
+    private long[] durations;
+    private CueTimeline timeline;
+
+    private ManualClock endlessClock;
+    private PhaseScheduler endless;
+    private CuePlayer endlessCues;
+
+    // cues played, so the work is not optimized away
+    private int played;
+    private final CuePlayer.Target target = new CuePlayer.Target() {
+        @Override
+        public void onCue(int event, int phase) {
+            played++;
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        boolean[] enabled = new boolean[WorkoutPlan.EXERCISES];
+        Arrays.fill(enabled, true);
+        long[] exerciseMs = new long[WorkoutPlan.EXERCISES];
+        Arrays.fill(exerciseMs, 30000);
+        WorkoutPlan plan = WorkoutPlan.compile(enabled, exerciseMs, 10000, 1);
+        durations = plan.getDurations();
+        timeline = CueTimeline.compile(plan);
+
+        endlessClock = new ManualClock(0);
+        endless = new PhaseScheduler(endlessClock, durations, 0);
+        endlessCues = new CuePlayer(timeline, target);
+        endless.start();
+    }
+
+    /**
+     * One tick of a running session, including the occasional phase change.
+     */
+    @Benchmark
+    public long tick() {
+        endlessClock.advance(TICK_INTERVAL);
+        long remaining = endless.getRemaining();
+        while (remaining <= 0) {
+            endless.advance();
+            remaining = endless.getRemaining();
+        }
+        long position = endless.getPosition();
+        if (position >= endlessCues.getNextDue()) {
+            endlessCues.advanceTo(position);
+        }
+        return remaining;
+    }
+
+    /**
+     * A whole default workout (about 7.5 minutes, ~4500 ticks).
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int wholeSession() {
+        ManualClock clock = new ManualClock(0);
+        PhaseScheduler scheduler = new PhaseScheduler(clock, durations, 1);
+        CuePlayer cues = new CuePlayer(timeline, target);
+        scheduler.start();
+
+        int ticks = 0;
+        while (true) {
+            long remaining = scheduler.getRemaining();
+            while (remaining <= 0) {
+                if (!scheduler.advance()) {
+                    cues.finish();
+                    return ticks + played;
+                }
+                remaining = scheduler.getRemaining();
+            }
+            long position = scheduler.getPosition();
+            if (position >= cues.getNextDue()) {
+                cues.advanceTo(position);
+            }
+            ticks++;
+            long delay = remaining % TICK_INTERVAL;
+            clock.advance(delay == 0 ? TICK_INTERVAL : delay);
+        }
+    }
+}